@@ -0,0 +1,42 @@
+package ua.hodik.testTask.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ua.hodik.testTask.dao.wal.CheckpointScheduler;
+import ua.hodik.testTask.dao.wal.Checkpointable;
+import ua.hodik.testTask.dao.wal.FsyncPolicy;
+import ua.hodik.testTask.dao.wal.UserJournal;
+import ua.hodik.testTask.dao.wal.WriteAheadLog;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+public class PersistenceConfig {
+    @Value("${wal.enabled:false}")
+    private boolean walEnabled;
+    @Value("${wal.directory:data/wal}")
+    private Path walDirectory;
+    @Value("${wal.fsyncPolicy:INTERVAL}")
+    private FsyncPolicy fsyncPolicy;
+    @Value("${wal.fsyncIntervalMs:100}")
+    private long fsyncIntervalMs;
+
+    @Bean(destroyMethod = "close")
+    public UserJournal userJournal() throws IOException {
+        if (!walEnabled) {
+            return UserJournal.NONE;
+        }
+        return new WriteAheadLog(walDirectory, fsyncPolicy, fsyncIntervalMs);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "wal.enabled", havingValue = "true")
+    public CheckpointScheduler checkpointScheduler(ObjectProvider<Checkpointable> userStores,
+                                                   @Value("${wal.snapshotIntervalMs:600000}") long snapshotIntervalMs) {
+        return new CheckpointScheduler(userStores.orderedStream().toList(), snapshotIntervalMs);
+    }
+}
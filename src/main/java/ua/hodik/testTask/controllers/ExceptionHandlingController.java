@@ -4,7 +4,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.support.WebExchangeBindException;
 import ua.hodik.testTask.exceptions.*;
+import ua.hodik.testTask.util.ValidationResult;
 
 @ControllerAdvice
 public class ExceptionHandlingController {
@@ -12,19 +14,24 @@ public class ExceptionHandlingController {
     @ExceptionHandler
     private ResponseEntity<ErrorResponse> exceptionHandler(UserAlreadyExistsException e) {
         ErrorResponse message = new ErrorResponse(e.getMessage());
-        ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         return new ResponseEntity<>(message, HttpStatus.BAD_REQUEST);
 
     }
 
     @ExceptionHandler
     private ResponseEntity<ErrorResponse> exceptionHandler(InvalidDataException e) {
-        ErrorResponse message = new ErrorResponse(e.getMessage());
-        ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        ErrorResponse message = new ErrorResponse(e.getMessage(), e.getErrors());
         return new ResponseEntity<>(message, HttpStatus.BAD_REQUEST);
 
     }
 
+    // @Valid on a WebFlux request body; reported like the errors of our own validators
+    @ExceptionHandler
+    private ResponseEntity<ErrorResponse> exceptionHandler(WebExchangeBindException e) {
+        ValidationResult result = new ValidationResult();
+        result.addAll(e);
+        return exceptionHandler(new InvalidDataException(result.getErrors()));
+    }
 
     @ExceptionHandler
     private ResponseEntity<ErrorResponse> exceptionHandler(IllegalArgumentException e) {
@@ -38,6 +45,12 @@ public class ExceptionHandlingController {
         return new ResponseEntity<>(message, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler
+    private ResponseEntity<ErrorResponse> exceptionHandler(UserVersionMismatchException e) {
+        ErrorResponse message = new ErrorResponse(e.getMessage());
+        return new ResponseEntity<>(message, HttpStatus.PRECONDITION_FAILED);
+    }
+
     @ExceptionHandler
     private ResponseEntity<ErrorResponse> exceptionHandler(UserNotUpdatedException e) {
         ErrorResponse message = new ErrorResponse(e.getMessage());
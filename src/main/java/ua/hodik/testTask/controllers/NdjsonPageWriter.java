@@ -0,0 +1,63 @@
+package ua.hodik.testTask.controllers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import ua.hodik.testTask.dto.UserDto;
+import ua.hodik.testTask.dto.UserPageDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.Function;
+
+// Writes one JSON document per line, pulling the next page only after the previous one is flushed,
+// so a request never holds more than one page of users.
+class NdjsonPageWriter {
+    static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter userWriter;
+
+    NdjsonPageWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.userWriter = objectMapper.writerFor(UserDto.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    void write(OutputStream out, Function<String, UserPageDto> pages) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            String cursor = null;
+            do {
+                UserPageDto page = pages.apply(cursor);
+                for (UserDto userDto : page.getUsers()) {
+                    userWriter.writeValue(generator, userDto);
+                    generator.writeRaw('\n');
+                }
+                generator.flush();
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+        }
+    }
+
+    // One page in a single buffer, so a reactive stream flushes once per page rather than once per user.
+    DataBuffer encode(List<UserDto> page, DataBufferFactory bufferFactory) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(page.size() * 128);
+        try (JsonGenerator generator = objectMapper.createGenerator(buffer.asOutputStream())) {
+            generator.setRootValueSeparator(null);
+            for (UserDto userDto : page) {
+                userWriter.writeValue(generator, userDto);
+                generator.writeRaw('\n');
+            }
+        } catch (IOException e) {
+            DataBufferUtils.release(buffer);
+            throw new UncheckedIOException(e);
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,113 @@
+package ua.hodik.testTask.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ua.hodik.testTask.dto.DateFormDto;
+import ua.hodik.testTask.dto.UserDto;
+import ua.hodik.testTask.service.ReactiveUserService;
+import ua.hodik.testTask.util.AbstractValidator;
+import ua.hodik.testTask.util.UserPatch;
+import ua.hodik.testTask.util.ValidationResult;
+
+// UserController's create, list, update, patch, delete and search on WebFlux, active when the application
+// runs as a reactive web application. Lists are streamed as they are read from the store, as a JSON array
+// or, with Accept: application/x-ndjson, one user per line; a slow client holds back the reading.
+// NDJSON goes out a page per buffer, since WebFlux flushes after every element of a streaming type.
+@RestController
+@RequestMapping("/users")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserController {
+    private static final int STREAM_BATCH_SIZE = 500;
+
+    private final AbstractValidator userValidator;
+    private final AbstractValidator dateValidator;
+    private final ReactiveUserService userService;
+    private final NdjsonPageWriter ndjsonPageWriter;
+
+    public ReactiveUserController(@Qualifier("userValidator") AbstractValidator userValidator,
+                                  @Qualifier("dateValidator") AbstractValidator dateValidator,
+                                  ReactiveUserService userService, ObjectMapper objectMapper) {
+        this.userValidator = userValidator;
+        this.dateValidator = dateValidator;
+        this.userService = userService;
+        this.ndjsonPageWriter = new NdjsonPageWriter(objectMapper);
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<UserDto>> createUser(@RequestBody UserDto userDto) {
+        validate(userValidator, userDto);
+        return userService.createUser(userDto)
+                .map(created -> ResponseEntity.status(HttpStatus.CREATED).eTag(VersionTags.eTag(created.getVersion())).body(created));
+    }
+
+    @GetMapping
+    public Flux<UserDto> getAll() {
+        return userService.findAllUsers();
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<DataBuffer> streamAll(ServerHttpResponse response) {
+        return ndjson(userService.findAllUsers(), response);
+    }
+
+    @PatchMapping("/{email}")
+    public Mono<ResponseEntity<UserDto>> patchUpdate(@PathVariable String email, @RequestBody UserPatch patch,
+                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Mono<UserDto> updated = VersionTags.isUnconditional(ifMatch)
+                ? userService.patchUpdate(email, patch)
+                : userService.patchUpdate(email, patch, VersionTags.expectedVersion(ifMatch));
+        return updated.map(ReactiveUserController::withETag);
+    }
+
+    @PutMapping("/{email}")
+    public Mono<ResponseEntity<UserDto>> update(@PathVariable String email, @RequestBody UserDto userDto,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        validate(userValidator, userDto);
+        Mono<UserDto> updated = VersionTags.isUnconditional(ifMatch)
+                ? userService.update(email, userDto)
+                : userService.update(email, userDto, VersionTags.expectedVersion(ifMatch));
+        return updated.map(ReactiveUserController::withETag);
+    }
+
+    @DeleteMapping("/{email}")
+    public Mono<ResponseEntity<Void>> remove(@PathVariable String email) {
+        return userService.delete(email).thenReturn(ResponseEntity.ok().build());
+    }
+
+    @PostMapping("/search")
+    public Flux<UserDto> searchByDateRange(@RequestBody @Valid DateFormDto dateForm) {
+        validate(dateValidator, dateForm);
+        return userService.searchByDateRange(dateForm);
+    }
+
+    @PostMapping(value = "/search", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<DataBuffer> streamSearchByDateRange(@RequestBody @Valid DateFormDto dateForm, ServerHttpResponse response) {
+        validate(dateValidator, dateForm);
+        return ndjson(userService.searchByDateRange(dateForm), response);
+    }
+
+    private static void validate(AbstractValidator validator, Object target) {
+        ValidationResult result = new ValidationResult();
+        validator.check(target, result);
+        result.throwIfInvalid();
+    }
+
+    private Flux<DataBuffer> ndjson(Flux<UserDto> users, ServerHttpResponse response) {
+        return users.buffer(STREAM_BATCH_SIZE).map(page -> ndjsonPageWriter.encode(page, response.bufferFactory()));
+    }
+
+    private static ResponseEntity<UserDto> withETag(UserDto userDto) {
+        return ResponseEntity.ok().eTag(VersionTags.eTag(userDto.getVersion())).body(userDto);
+    }
+}
@@ -1,36 +1,58 @@
 package ua.hodik.testTask.controllers;
 
-import com.github.fge.jsonpatch.JsonPatch;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.Validator;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ua.hodik.testTask.dto.BirthDateBucketDto;
+import ua.hodik.testTask.dto.BirthDateHistogramUnit;
+import ua.hodik.testTask.dto.BulkImportResultDto;
 import ua.hodik.testTask.dto.DateFormDto;
+import ua.hodik.testTask.dto.SerializedUserDto;
+import ua.hodik.testTask.dto.UserCacheStatsDto;
+import ua.hodik.testTask.dto.UserCountDto;
 import ua.hodik.testTask.dto.UserDto;
+import ua.hodik.testTask.dto.UserPageDto;
+import ua.hodik.testTask.service.UserImportService;
 import ua.hodik.testTask.service.UserService;
+import ua.hodik.testTask.util.UserPatch;
 
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
 @RequestMapping("/users")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class UserController {
 
 
+    private static final int STREAM_BATCH_SIZE = 500;
+
     private final Validator userValidator;
     private final Validator dateValidator;
     private final UserService userService;
+    private final UserImportService userImportService;
+    private final NdjsonPageWriter ndjsonPageWriter;
 
     @Autowired
     public UserController(@Qualifier("userValidator") Validator userValidator,
-                          @Qualifier("dateValidator") Validator dateValidator, UserService userService) {
+                          @Qualifier("dateValidator") Validator dateValidator, UserService userService,
+                          UserImportService userImportService, ObjectMapper objectMapper) {
 
         this.userValidator = userValidator;
         this.dateValidator = dateValidator;
         this.userService = userService;
+        this.userImportService = userImportService;
+        this.ndjsonPageWriter = new NdjsonPageWriter(objectMapper);
     }
 
 
@@ -38,26 +60,66 @@ public class UserController {
     public ResponseEntity<UserDto> createUser(@RequestBody UserDto userDTO, BindingResult bindingResult) {
         validateUser(userDTO, bindingResult);
         UserDto userDto = userService.createUser(userDTO);
-        return ResponseEntity.status(HttpStatus.CREATED).body(userDto);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(VersionTags.eTag(userDto.getVersion())).body(userDto);
+    }
+
+    // For GET, Spring compares the ETag with If-None-Match and answers 304 without a body.
+    @GetMapping("/{email}")
+    public ResponseEntity<byte[]> getByEmail(@PathVariable String email) {
+        return json(userService.findByEmail(email));
+    }
+
+    @GetMapping("/id/{id}")
+    public ResponseEntity<byte[]> getById(@PathVariable long id) {
+        return json(userService.findById(id));
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<UserCacheStatsDto> getCacheStats() {
+        return ResponseEntity.ok(userService.getCacheStats());
+    }
+
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, NdjsonPageWriter.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BulkImportResultDto> importUsers(InputStream body) {
+        BulkImportResultDto result = userImportService.importUsers(body);
+        return ResponseEntity.ok(result);
     }
 
     @GetMapping
-    public ResponseEntity<List<UserDto>> getAll() {
-        List<UserDto> userDtoList = userService.findAllUsers();
-        return ResponseEntity.ok(userDtoList);
+    public ResponseEntity<byte[]> getAll() {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(userService.findAllUsersJson());
+    }
+
+    @GetMapping(params = "limit")
+    public ResponseEntity<UserPageDto> getPage(@RequestParam int limit, @RequestParam(required = false) String cursor) {
+        UserPageDto page = userService.findPage(cursor, limit);
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping(produces = NdjsonPageWriter.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        StreamingResponseBody body = out -> ndjsonPageWriter.write(out,
+                cursor -> userService.findPage(cursor, STREAM_BATCH_SIZE));
+        return ndjson(body);
     }
 
     @PatchMapping("/{email}")
-    public ResponseEntity<UserDto> patchUpdate(@PathVariable String email, @RequestBody JsonPatch jsonPatch) {
-        UserDto updatedUserDto = userService.patchUpdate(email, jsonPatch);
-        return ResponseEntity.status(HttpStatus.OK).body(updatedUserDto);
+    public ResponseEntity<UserDto> patchUpdate(@PathVariable String email, @RequestBody UserPatch patch,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        UserDto updatedUserDto = VersionTags.isUnconditional(ifMatch)
+                ? userService.patchUpdate(email, patch)
+                : userService.patchUpdate(email, patch, VersionTags.expectedVersion(ifMatch));
+        return ResponseEntity.status(HttpStatus.OK).eTag(VersionTags.eTag(updatedUserDto.getVersion())).body(updatedUserDto);
     }
 
     @PutMapping("/{email}")
-    public ResponseEntity<UserDto> update(@PathVariable String email, @RequestBody UserDto userDto, BindingResult bindingResult) {
+    public ResponseEntity<UserDto> update(@PathVariable String email, @RequestBody UserDto userDto, BindingResult bindingResult,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         validateUser(userDto, bindingResult);
-        UserDto updatedUserDto = userService.update(email, userDto);
-        return ResponseEntity.status(HttpStatus.OK).body(updatedUserDto);
+        UserDto updatedUserDto = VersionTags.isUnconditional(ifMatch)
+                ? userService.update(email, userDto)
+                : userService.update(email, userDto, VersionTags.expectedVersion(ifMatch));
+        return ResponseEntity.status(HttpStatus.OK).eTag(VersionTags.eTag(updatedUserDto.getVersion())).body(updatedUserDto);
     }
 
     @DeleteMapping("/{email}")
@@ -73,11 +135,48 @@ public class UserController {
         return ResponseEntity.ok(userDtoList);
     }
 
+    @PostMapping(value = "/search", params = "limit")
+    public ResponseEntity<UserPageDto> searchPageByDateRange(@RequestBody @Valid DateFormDto dateForm, BindingResult bindingResult,
+                                                             @RequestParam int limit, @RequestParam(required = false) String cursor) {
+        dateValidator.validate(dateForm, bindingResult);
+        UserPageDto page = userService.searchPageByDateRange(dateForm, cursor, limit);
+        return ResponseEntity.ok(page);
+    }
+
+    @PostMapping(value = "/search", produces = NdjsonPageWriter.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamSearchByDateRange(@RequestBody @Valid DateFormDto dateForm, BindingResult bindingResult) {
+        dateValidator.validate(dateForm, bindingResult);
+        StreamingResponseBody body = out -> ndjsonPageWriter.write(out,
+                cursor -> userService.searchPageByDateRange(dateForm, cursor, STREAM_BATCH_SIZE));
+        return ndjson(body);
+    }
+
+    @PostMapping("/search/count")
+    public ResponseEntity<UserCountDto> countByDateRange(@RequestBody @Valid DateFormDto dateForm, BindingResult bindingResult) {
+        dateValidator.validate(dateForm, bindingResult);
+        return ResponseEntity.ok(userService.countByDateRange(dateForm));
+    }
+
+    @PostMapping("/search/histogram")
+    public ResponseEntity<List<BirthDateBucketDto>> histogramByDateRange(@RequestBody @Valid DateFormDto dateForm, BindingResult bindingResult,
+                                                                        @RequestParam(defaultValue = "YEAR") BirthDateHistogramUnit unit) {
+        dateValidator.validate(dateForm, bindingResult);
+        return ResponseEntity.ok(userService.histogramByDateRange(dateForm, unit));
+    }
+
 
     private void validateUser(UserDto userDTO, BindingResult bindingResult) {
         userValidator.validate(userDTO, bindingResult);
 
     }
 
+    private static ResponseEntity<byte[]> json(SerializedUserDto user) {
+        return ResponseEntity.ok().eTag(VersionTags.eTag(user.version())).contentType(MediaType.APPLICATION_JSON).body(user.json());
+    }
+
+    private static ResponseEntity<StreamingResponseBody> ndjson(StreamingResponseBody body) {
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NdjsonPageWriter.APPLICATION_NDJSON_VALUE)).body(body);
+    }
+
 
 }
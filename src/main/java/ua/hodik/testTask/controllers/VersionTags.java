@@ -0,0 +1,32 @@
+package ua.hodik.testTask.controllers;
+
+import ua.hodik.testTask.exceptions.UserVersionMismatchException;
+
+// The user version as an ETag, and the If-Match check of update and patch, for both controllers.
+final class VersionTags {
+
+    private VersionTags() {
+    }
+
+    static String eTag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    // "*" only asks for the user to exist, which update and patch require anyway.
+    static boolean isUnconditional(String ifMatch) {
+        return ifMatch == null || ifMatch.trim().equals("*");
+    }
+
+    // Only strong tags we issued can match; anything else fails the precondition.
+    static long expectedVersion(String ifMatch) {
+        String tag = ifMatch.trim();
+        try {
+            if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            }
+        } catch (NumberFormatException ignored) {
+            // falls through to the mismatch below
+        }
+        throw new UserVersionMismatchException(String.format("If-Match %s does not match any user version", ifMatch));
+    }
+}
@@ -0,0 +1,96 @@
+package ua.hodik.testTask.dao;
+
+import java.time.LocalDate;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Number of users per birth day in a Fenwick tree over epoch days, so a write and a count over any range
+// are O(log days) and never touch users. The tree covers a window of days that doubles when a date
+// outside it arrives; writes are rare next to counts, so one lock is cheap enough here. It is not a monitor,
+// so a virtual thread waiting for it unmounts instead of pinning its carrier.
+class BirthDateCounts {
+    private static final long FIRST_DAY = LocalDate.of(1900, 1, 1).toEpochDay();
+    private static final int INITIAL_DAYS = 1 << 16;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private long firstDay = FIRST_DAY;
+    // tree[i] holds the count of the (i & -i) days ending at firstDay + i - 1
+    private long[] tree = new long[INITIAL_DAYS + 1];
+
+    void replace(LocalDate oldDate, LocalDate newDate) {
+        lock.lock();
+        try {
+            if (oldDate != null) {
+                add(oldDate.toEpochDay(), -1);
+            }
+            if (newDate != null) {
+                add(newDate.toEpochDay(), 1);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Users born strictly between the two days, as searchByBirthDayRange returns them.
+    long countBetween(LocalDate from, LocalDate to) {
+        long fromDay = from.toEpochDay() + 1;
+        long toDay = to.toEpochDay();
+        if (fromDay >= toDay) {
+            return 0;
+        }
+        lock.lock();
+        try {
+            return countBefore(toDay) - countBefore(fromDay);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long countBefore(long day) {
+        long index = Math.min(day - firstDay, tree.length - 1);
+        long count = 0;
+        for (int i = (int) Math.max(index, 0); i > 0; i -= i & -i) {
+            count += tree[i];
+        }
+        return count;
+    }
+
+    private void add(long day, long delta) {
+        if (day < firstDay || day - firstDay >= tree.length - 1) {
+            grow(day);
+        }
+        for (int i = (int) (day - firstDay) + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    // Doubles the window toward the day until it fits, then rebuilds the tree from the per-day counts.
+    private void grow(long day) {
+        int days = tree.length - 1;
+        long[] perDay = new long[days];
+        for (int i = 0; i < days; i++) {
+            perDay[i] = countBefore(firstDay + i + 1) - countBefore(firstDay + i);
+        }
+        long newFirstDay = firstDay;
+        int newDays = days;
+        while (day < newFirstDay || day - newFirstDay >= newDays) {
+            if (day < newFirstDay) {
+                newFirstDay -= newDays;
+            }
+            newDays *= 2;
+        }
+        long[] newTree = new long[newDays + 1];
+        int shift = (int) (firstDay - newFirstDay);
+        for (int i = 0; i < days; i++) {
+            newTree[shift + i + 1] = perDay[i];
+        }
+        // linear Fenwick build: each node passes its total on to its parent
+        for (int i = 1; i <= newDays; i++) {
+            int parent = i + (i & -i);
+            if (parent <= newDays) {
+                newTree[parent] += newTree[i];
+            }
+        }
+        firstDay = newFirstDay;
+        tree = newTree;
+    }
+}
@@ -0,0 +1,67 @@
+package ua.hodik.testTask.dao;
+
+import ua.hodik.testTask.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+class BirthDateIndex {
+    private static final String MIN_EMAIL = "";
+
+    // Keyed by (epoch day, email) instead of day -> bucket, so there are no buckets to create
+    // or drop under concurrent writes and a range is a single subMap view.
+    private final ConcurrentNavigableMap<Key, User> index = new ConcurrentSkipListMap<>();
+
+    void replace(String email, User oldUser, User newUser) {
+        if (oldUser != null && oldUser.getBirthDate() != null) {
+            index.remove(new Key(oldUser.getBirthDate().toEpochDay(), email));
+        }
+        if (newUser != null && newUser.getBirthDate() != null) {
+            index.put(new Key(newUser.getBirthDate().toEpochDay(), email), newUser);
+        }
+    }
+
+    List<User> search(LocalDate from, LocalDate to) {
+        long fromDay = from.toEpochDay() + 1;
+        long toDay = to.toEpochDay();
+        if (fromDay >= toDay) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(index.subMap(new Key(fromDay, MIN_EMAIL), new Key(toDay, MIN_EMAIL)).values());
+    }
+
+    List<User> page(LocalDate from, LocalDate to, LocalDate afterBirthDate, String afterEmail, int limit) {
+        Key upper = new Key(to.toEpochDay(), MIN_EMAIL);
+        Key lower = new Key(from.toEpochDay() + 1, MIN_EMAIL);
+        boolean lowerInclusive = true;
+        if (afterBirthDate != null) {
+            Key after = new Key(afterBirthDate.toEpochDay(), afterEmail);
+            if (after.compareTo(lower) >= 0) {
+                lower = after;
+                lowerInclusive = false;
+            }
+        }
+        List<User> users = new ArrayList<>(limit);
+        if (lower.compareTo(upper) >= 0) {
+            return users;
+        }
+        for (User user : index.subMap(lower, lowerInclusive, upper, false).values()) {
+            users.add(user);
+            if (users.size() == limit) {
+                break;
+            }
+        }
+        return users;
+    }
+
+    private record Key(long epochDay, String email) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key other) {
+            int byDay = Long.compare(epochDay, other.epochDay);
+            return byDay != 0 ? byDay : email.compareTo(other.email);
+        }
+    }
+}
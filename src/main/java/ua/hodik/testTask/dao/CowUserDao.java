@@ -0,0 +1,371 @@
+package ua.hodik.testTask.dao;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ua.hodik.testTask.dao.wal.Checkpointable;
+import ua.hodik.testTask.dao.wal.UserJournal;
+import ua.hodik.testTask.dao.wal.WalRecord;
+import ua.hodik.testTask.model.User;
+
+import java.time.LocalDate;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+// Readers take no lock: each read works on one immutable State, so findAll and the range searches see
+// a point-in-time view of the store. Writers are serialized and publish a new State that shares all but
+// the O(log n) path each persistent index copies for the changed user.
+// User is a mutable bean, so every write stores its own copy of the user it is given, stamped before any
+// State holds it. Users handed out are the stored ones, shared by every State that holds them, and must
+// not be mutated; a change goes through a write with a new User.
+@Component
+@ConditionalOnProperty(name = "userStore.engine", havingValue = "cow")
+public class CowUserDao implements UserDao, Checkpointable {
+    private static final String MIN_EMAIL = "";
+    private static final State EMPTY = new State(PersistentHashMap.empty(), PersistentTreeMap.empty(),
+            PersistentTreeMap.empty(), PersistentHashMap.empty(), 0, 0);
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final UserJournal journal;
+    private final EmailCanonicalizer canonicalizer;
+    // shared by all States and updated as each one is built, so counts are not point-in-time
+    private final BirthDateCounts birthDateCounts = new BirthDateCounts();
+    private volatile State state;
+
+    public CowUserDao() {
+        this(UserJournal.NONE, new EmailCanonicalizer(EmailCanonicalizer.LocalPartPolicy.LOWERCASE));
+    }
+
+    @Autowired
+    public CowUserDao(UserJournal journal, EmailCanonicalizer canonicalizer) {
+        this.journal = journal;
+        this.canonicalizer = canonicalizer;
+        State[] replayed = {EMPTY};
+        long snapshotLastId = journal.replay(record -> replayed[0] = apply(replayed[0], record));
+        this.state = replayed[0].withLastId(Math.max(replayed[0].lastId(), snapshotLastId));
+    }
+
+    @Override
+    public User create(User user) {
+        return put(WalRecord.create(user.getEmail(), copyOf(user)));
+    }
+
+    @Override
+    public Optional<User> createIfAbsent(User newUser) {
+        User user = copyOf(newUser);
+        String key = canonicalizer.canonicalize(user.getEmail());
+        long position = 0;
+        writeLock.lock();
+        try {
+            State current = state;
+            if (current.get(key) != null) {
+                return Optional.empty();
+            }
+            long lastId = stamp(current.lastId(), null, user);
+            position = journal.append(WalRecord.create(key, user));
+            state = change(current, key, null, user, lastId);
+        } finally {
+            writeLock.unlock();
+            journal.commit(position);
+        }
+        return Optional.of(user);
+    }
+
+    // The whole batch is one new State, so readers see all of it or none of it.
+    @Override
+    public boolean[] createAllIfAbsent(List<User> users) {
+        boolean[] created = new boolean[users.size()];
+        long[] positions = new long[users.size()];
+        writeLock.lock();
+        try {
+            State next = state;
+            for (int i = 0; i < users.size(); i++) {
+                String key = canonicalizer.canonicalize(users.get(i).getEmail());
+                if (next.get(key) == null) {
+                    User user = copyOf(users.get(i));
+                    long lastId = stamp(next.lastId(), null, user);
+                    positions[i] = journal.append(WalRecord.create(key, user));
+                    next = change(next, key, null, user, lastId);
+                    created[i] = true;
+                }
+            }
+            state = next;
+        } finally {
+            writeLock.unlock();
+            for (long position : positions) {
+                journal.commit(position);
+            }
+        }
+        return created;
+    }
+
+    @Override
+    public User update(String email, User user) {
+        return put(WalRecord.update(email, copyOf(user)));
+    }
+
+    @Override
+    public Optional<User> updateIfPresent(String email, User user) {
+        return computeIfPresent(email, oldUser -> user);
+    }
+
+    @Override
+    public Optional<User> computeIfPresent(String email, UnaryOperator<User> remapping) {
+        String key = canonicalizer.canonicalize(email);
+        long position = 0;
+        User user;
+        writeLock.lock();
+        try {
+            State current = state;
+            User oldUser = current.get(key);
+            if (oldUser == null) {
+                return Optional.empty();
+            }
+            user = copyOf(remapping.apply(oldUser));
+            long lastId = stamp(current.lastId(), oldUser, user);
+            position = journal.append(WalRecord.update(key, user));
+            state = change(current, key, oldUser, user, lastId);
+        } finally {
+            writeLock.unlock();
+            journal.commit(position);
+        }
+        return Optional.of(user);
+    }
+
+    @Override
+    public Optional<User> deleteIfPresent(String email) {
+        String key = canonicalizer.canonicalize(email);
+        long position = 0;
+        User oldUser;
+        writeLock.lock();
+        try {
+            State current = state;
+            oldUser = current.get(key);
+            if (oldUser == null) {
+                return Optional.empty();
+            }
+            position = journal.append(WalRecord.delete(key));
+            state = change(current, key, oldUser, null, current.lastId());
+        } finally {
+            writeLock.unlock();
+            journal.commit(position);
+        }
+        return Optional.of(oldUser);
+    }
+
+    @Override
+    public void delete(String email) {
+        deleteIfPresent(email);
+    }
+
+    @Override
+    public List<User> findAll() {
+        State current = state;
+        List<User> users = new ArrayList<>(current.size());
+        current.byEmailOrder().forEach(null, false, null, (key, user) -> users.add(user));
+        return users;
+    }
+
+    @Override
+    public UserPage findPage(String afterEmail, int limit) {
+        List<User> users = new ArrayList<>(limit);
+        String[] lastEmail = new String[1];
+        state.byEmailOrder().forEach(canonicalizer.canonicalize(afterEmail), false, null, (key, user) -> {
+            users.add(user);
+            lastEmail[0] = key;
+            return users.size() < limit;
+        });
+        return new UserPage(users, users.size() == limit ? lastEmail[0] : null);
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return Optional.ofNullable(state.get(canonicalizer.canonicalize(email)));
+    }
+
+    @Override
+    public Optional<User> findById(long id) {
+        return Optional.ofNullable(state.byId().get(id));
+    }
+
+    @Override
+    public long modificationCount() {
+        return state.modifications();
+    }
+
+    @Override
+    public List<User> searchByBirthDayRange(LocalDate from, LocalDate to) {
+        List<User> users = new ArrayList<>();
+        long fromDay = from.toEpochDay() + 1;
+        long toDay = to.toEpochDay();
+        if (fromDay < toDay) {
+            state.byBirthDate().forEach(new Dated(fromDay, MIN_EMAIL), true, new Dated(toDay, MIN_EMAIL),
+                    (dated, user) -> users.add(user));
+        }
+        return users;
+    }
+
+    @Override
+    public long countByBirthDayRange(LocalDate from, LocalDate to) {
+        return birthDateCounts.countBetween(from, to);
+    }
+
+    @Override
+    public List<User> searchPageByBirthDayRange(LocalDate from, LocalDate to, LocalDate afterBirthDate, String afterEmail, int limit) {
+        Dated upper = new Dated(to.toEpochDay(), MIN_EMAIL);
+        Dated lower = new Dated(from.toEpochDay() + 1, MIN_EMAIL);
+        boolean lowerInclusive = true;
+        if (afterBirthDate != null) {
+            Dated after = new Dated(afterBirthDate.toEpochDay(), canonicalizer.canonicalize(afterEmail));
+            if (after.compareTo(lower) >= 0) {
+                lower = after;
+                lowerInclusive = false;
+            }
+        }
+        List<User> users = new ArrayList<>(limit);
+        if (lower.compareTo(upper) < 0) {
+            state.byBirthDate().forEach(lower, lowerInclusive, upper, (dated, user) -> {
+                users.add(user);
+                return users.size() < limit;
+            });
+        }
+        return users;
+    }
+
+    // Every write before the journal's cut is published by the time the collection is read.
+    @Override
+    public void checkpoint() {
+        journal.checkpoint(new AbstractCollection<>() {
+            @Override
+            public Iterator<Map.Entry<String, User>> iterator() {
+                List<Map.Entry<String, User>> entries = new ArrayList<>(state.size());
+                state.byEmailOrder().forEach(null, false, null, (key, user) -> entries.add(Map.entry(key, user)));
+                return entries.iterator();
+            }
+
+            @Override
+            public int size() {
+                return state.size();
+            }
+        }, () -> state.lastId());
+    }
+
+    private User put(WalRecord record) {
+        String key = canonicalizer.canonicalize(record.email());
+        long position = 0;
+        writeLock.lock();
+        try {
+            State current = state;
+            User oldUser = current.get(key);
+            long lastId = stamp(current.lastId(), oldUser, record.user());
+            position = journal.append(record);
+            state = change(current, key, oldUser, record.user(), lastId);
+        } finally {
+            writeLock.unlock();
+            journal.commit(position);
+        }
+        return record.user();
+    }
+
+    // Replayed emails are canonicalized again, so a log written under another local-part policy still loads.
+    private State apply(State current, WalRecord record) {
+        String key = canonicalizer.canonicalize(record.email());
+        User oldUser = current.get(key);
+        if (record.operation() == WalRecord.Operation.DELETE) {
+            return oldUser == null ? current : change(current, key, oldUser, null, current.lastId());
+        }
+        return change(current, key, oldUser, record.user(), Math.max(current.lastId(), record.user().getId()));
+    }
+
+    private State change(State current, String email, User oldUser, User newUser, long lastId) {
+        birthDateCounts.replace(oldUser == null ? null : oldUser.getBirthDate(), newUser == null ? null : newUser.getBirthDate());
+        return current.with(email, oldUser, newUser, lastId);
+    }
+
+    // A new user gets the next id and version 1; a replaced one keeps its id and bumps the version.
+    // Returns the last id handed out.
+    private static long stamp(long lastId, User oldUser, User newUser) {
+        if (oldUser == null) {
+            newUser.setId(++lastId);
+            newUser.setVersion(1);
+        } else {
+            newUser.setId(oldUser.getId());
+            newUser.setVersion(oldUser.getVersion() + 1);
+        }
+        return lastId;
+    }
+
+    private static User copyOf(User user) {
+        User copy = new User();
+        copy.setEmail(user.getEmail());
+        copy.setFirstName(user.getFirstName());
+        copy.setLastName(user.getLastName());
+        copy.setBirthDate(user.getBirthDate());
+        copy.setAddress(user.getAddress());
+        copy.setPhoneNumber(user.getPhoneNumber());
+        return copy;
+    }
+
+    // A birth date index key, ordered by epoch day then email.
+    private record Dated(long epochDay, String email) implements Comparable<Dated> {
+        static Dated of(String email, User user) {
+            return user.getBirthDate() == null ? null : new Dated(user.getBirthDate().toEpochDay(), email);
+        }
+
+        @Override
+        public int compareTo(Dated other) {
+            int byDay = Long.compare(epochDay, other.epochDay);
+            return byDay != 0 ? byDay : email.compareTo(other.email);
+        }
+    }
+
+    // One published version of the store. Point lookups go through the hash tries, ordered walks
+    // through the trees; all four always describe the same users.
+    private record State(PersistentHashMap<String, User> byEmail, PersistentTreeMap<String, User> byEmailOrder,
+                         PersistentTreeMap<Dated, User> byBirthDate, PersistentHashMap<Long, User> byId,
+                         long lastId, long modifications) {
+
+        User get(String email) {
+            return byEmail.get(email);
+        }
+
+        int size() {
+            return byEmail.size();
+        }
+
+        State withLastId(long newLastId) {
+            return new State(byEmail, byEmailOrder, byBirthDate, byId, newLastId, modifications);
+        }
+
+        State with(String email, User oldUser, User newUser, long newLastId) {
+            PersistentHashMap<String, User> emails = newUser == null ? byEmail.remove(email) : byEmail.put(email, newUser);
+            PersistentTreeMap<String, User> emailOrder = newUser == null
+                    ? byEmailOrder.remove(email) : byEmailOrder.put(email, newUser);
+            PersistentTreeMap<Dated, User> birthDates = byBirthDate;
+            PersistentHashMap<Long, User> ids = byId;
+            if (oldUser != null) {
+                Dated oldDate = Dated.of(email, oldUser);
+                if (oldDate != null) {
+                    birthDates = birthDates.remove(oldDate);
+                }
+                if (newUser == null || oldUser.getId() != newUser.getId()) {
+                    ids = ids.remove(oldUser.getId());
+                }
+            }
+            if (newUser != null) {
+                Dated newDate = Dated.of(email, newUser);
+                if (newDate != null) {
+                    birthDates = birthDates.put(newDate, newUser);
+                }
+                ids = ids.put(newUser.getId(), newUser);
+            }
+            return new State(emails, emailOrder, birthDates, ids, newLastId, modifications + 1);
+        }
+    }
+}
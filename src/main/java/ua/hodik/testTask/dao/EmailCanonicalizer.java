@@ -0,0 +1,44 @@
+package ua.hodik.testTask.dao;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+// Maps the spellings of an email that address the same mailbox to one key. Domains are case-insensitive,
+// so they are always lowercased; the local part is only lowercased under LOWERCASE, since RFC 5321 leaves
+// its case to the receiving server. An email that is already canonical is returned as is, without copying.
+@Component
+public class EmailCanonicalizer {
+    public enum LocalPartPolicy {
+        PRESERVE, LOWERCASE
+    }
+
+    private final LocalPartPolicy localPartPolicy;
+
+    public EmailCanonicalizer(@Value("${userStore.email.localPart:LOWERCASE}") LocalPartPolicy localPartPolicy) {
+        this.localPartPolicy = localPartPolicy;
+    }
+
+    public String canonicalize(String email) {
+        if (email == null) {
+            return null;
+        }
+        int at = email.lastIndexOf('@');
+        int from = localPartPolicy == LocalPartPolicy.LOWERCASE || at < 0 ? 0 : at + 1;
+        if (!hasUpperCase(email, from)) {
+            return email;
+        }
+        return email.substring(0, from) + email.substring(from).toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean hasUpperCase(String email, int from) {
+        for (int i = from; i < email.length(); i++) {
+            char c = email.charAt(i);
+            if (c >= 'A' && c <= 'Z' || c >= 0x80 && Character.toLowerCase(c) != c) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,69 @@
+package ua.hodik.testTask.dao;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Append-only record area split into fixed-size mapped chunks; a record never spans two chunks.
+// Not thread-safe: the owner serializes appends against reads.
+final class MappedRecordFile implements AutoCloseable {
+    static final int CHUNK_SIZE = 1 << 28;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final List<MappedByteBuffer> chunks = new ArrayList<>();
+    private long end;
+
+    MappedRecordFile(Path path) throws IOException {
+        this.path = path;
+        Files.createDirectories(path.getParent());
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    long append(byte[] record) {
+        long offset = end;
+        if (position(offset) + record.length > CHUNK_SIZE) {
+            offset = (offset / CHUNK_SIZE + 1) * CHUNK_SIZE;
+        }
+        chunk(offset).put(position(offset), record);
+        end = offset + record.length;
+        return offset;
+    }
+
+    MappedByteBuffer chunk(long offset) {
+        int index = (int) (offset / CHUNK_SIZE);
+        while (chunks.size() <= index) {
+            try {
+                chunks.add(channel.map(FileChannel.MapMode.READ_WRITE, (long) chunks.size() * CHUNK_SIZE, CHUNK_SIZE));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to map " + path, e);
+            }
+        }
+        return chunks.get(index);
+    }
+
+    static int position(long offset) {
+        return (int) (offset % CHUNK_SIZE);
+    }
+
+    long size() {
+        return end;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
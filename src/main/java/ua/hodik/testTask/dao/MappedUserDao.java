@@ -0,0 +1,696 @@
+package ua.hodik.testTask.dao;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ua.hodik.testTask.dao.wal.Checkpointable;
+import ua.hodik.testTask.dao.wal.UserJournal;
+import ua.hodik.testTask.dao.wal.WalRecord;
+import ua.hodik.testTask.model.User;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+import java.util.function.UnaryOperator;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Keeps users as compact binary records in memory-mapped files, indexed by an off-heap hash table,
+// so the heap holds no per-user objects; a User is only built when it is returned.
+// The file is scratch space: it is truncated on start, rebuilt from the journal and deleted on close.
+// Overwritten and deleted records are not reclaimed in place. Once they take more room than the live
+// records, the write that tips it over copies the live records into a fresh file, so the file stays
+// within about twice the live data and each write pays an amortized O(1) share of the copying.
+@Component
+@ConditionalOnProperty(name = "userStore.engine", havingValue = "mapped")
+public class MappedUserDao implements UserDao, Checkpointable, AutoCloseable {
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final long MIN_COMPACTION_WASTE = 1 << 20;
+    private static final int CHECKPOINT_BATCH_SIZE = 1024;
+    // record layout: int length, long id, long birth epoch day, long version, then canonical key, email, first name,
+    // last name, address and phone number as (int length, UTF-8 bytes), length -1 meaning null
+    private static final int ID_OFFSET = 4;
+    private static final int BIRTH_DATE_OFFSET = 12;
+    private static final int VERSION_OFFSET = 20;
+    private static final int KEY_OFFSET = 28;
+    private static final Comparator<PageCandidate> BY_EMAIL = Comparator.comparing(PageCandidate::email);
+    private static final Comparator<PageCandidate> BY_BIRTH_DATE =
+            Comparator.comparingLong(PageCandidate::birthDay).thenComparing(PageCandidate::email);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Path directory;
+    // replaced by a compaction under the write lock, like the indexes over it
+    private MappedRecordFile records;
+    private OffHeapHashIndex index = new OffHeapHashIndex(1 << 16);
+    private OffHeapHashIndex idIndex = new OffHeapHashIndex(1 << 16);
+    private int generation;
+    // guarded by the write lock: bytes of the records the index points to, and whether a checkpoint
+    // is reading records by offset, which a compaction would move
+    private long liveBytes;
+    private boolean checkpointing;
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+    private final BirthDateCounts birthDateCounts = new BirthDateCounts();
+    // guarded by the write lock
+    private long lastId;
+    // written under the write lock, read without it; a reader that sees a new count and then takes
+    // the read lock sees the write behind it
+    private volatile long modifications;
+    private final UserJournal journal;
+    private final EmailCanonicalizer canonicalizer;
+
+    public MappedUserDao(Path directory) throws IOException {
+        this(directory, UserJournal.NONE);
+    }
+
+    public MappedUserDao(Path directory, UserJournal journal) throws IOException {
+        this(directory, journal, new EmailCanonicalizer(EmailCanonicalizer.LocalPartPolicy.LOWERCASE));
+    }
+
+    @Autowired
+    public MappedUserDao(@Value("${userStore.mapped.directory:data/mapped}") Path directory,
+                         UserJournal journal, EmailCanonicalizer canonicalizer) throws IOException {
+        this.directory = directory;
+        this.records = new MappedRecordFile(recordPath(generation));
+        this.journal = journal;
+        this.canonicalizer = canonicalizer;
+        long snapshotLastId = journal.replay(this::apply);
+        lastId = Math.max(lastId, snapshotLastId);
+    }
+
+    @Override
+    public User create(User user) {
+        return put(WalRecord.create(user.getEmail(), user));
+    }
+
+    @Override
+    public Optional<User> createIfAbsent(User user) {
+        byte[] key = key(user.getEmail());
+        long position = 0;
+        lock.writeLock().lock();
+        try {
+            if (index.get(hash(key), offset -> keyMatches(offset, key)) != OffHeapHashIndex.MISSING) {
+                return Optional.empty();
+            }
+            stamp(OffHeapHashIndex.MISSING, user);
+            position = journal.append(WalRecord.create(user.getEmail(), user));
+            store(key, user);
+        } finally {
+            lock.writeLock().unlock();
+            journal.commit(position);
+        }
+        return Optional.of(user);
+    }
+
+    @Override
+    public boolean[] createAllIfAbsent(List<User> users) {
+        boolean[] created = new boolean[users.size()];
+        long[] positions = new long[users.size()];
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < users.size(); i++) {
+                User user = users.get(i);
+                byte[] key = key(user.getEmail());
+                if (index.get(hash(key), offset -> keyMatches(offset, key)) == OffHeapHashIndex.MISSING) {
+                    stamp(OffHeapHashIndex.MISSING, user);
+                    positions[i] = journal.append(WalRecord.create(user.getEmail(), user));
+                    store(key, user);
+                    created[i] = true;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+            for (long position : positions) {
+                journal.commit(position);
+            }
+        }
+        return created;
+    }
+
+    @Override
+    public User update(String email, User user) {
+        return put(WalRecord.update(email, user));
+    }
+
+    @Override
+    public Optional<User> updateIfPresent(String email, User user) {
+        byte[] key = key(email);
+        long position = 0;
+        lock.writeLock().lock();
+        try {
+            long offset = index.get(hash(key), candidate -> keyMatches(candidate, key));
+            if (offset == OffHeapHashIndex.MISSING) {
+                return Optional.empty();
+            }
+            stamp(offset, user);
+            position = journal.append(WalRecord.update(email, user));
+            store(key, user);
+        } finally {
+            lock.writeLock().unlock();
+            journal.commit(position);
+        }
+        return Optional.of(user);
+    }
+
+    @Override
+    public Optional<User> computeIfPresent(String email, UnaryOperator<User> remapping) {
+        byte[] key = key(email);
+        long position = 0;
+        User user;
+        lock.writeLock().lock();
+        try {
+            long offset = index.get(hash(key), candidate -> keyMatches(candidate, key));
+            if (offset == OffHeapHashIndex.MISSING) {
+                return Optional.empty();
+            }
+            user = remapping.apply(read(offset));
+            stamp(offset, user);
+            position = journal.append(WalRecord.update(email, user));
+            store(key, user);
+        } finally {
+            lock.writeLock().unlock();
+            journal.commit(position);
+        }
+        return Optional.of(user);
+    }
+
+    @Override
+    public List<User> findAll() {
+        lock.readLock().lock();
+        try {
+            List<User> users = new ArrayList<>(index.size());
+            index.forEach(offset -> users.add(read(offset)));
+            return users;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public UserPage findPage(String afterEmail, int limit) {
+        String after = canonicalizer.canonicalize(afterEmail);
+        lock.readLock().lock();
+        try {
+            List<PageCandidate> page = smallest(BY_EMAIL, limit, offset -> {
+                String email = readKey(offset);
+                return after == null || email.compareTo(after) > 0 ? new PageCandidate(NO_DATE, email, offset) : null;
+            });
+            List<User> users = read(page);
+            return new UserPage(users, users.size() == limit ? page.get(limit - 1).email() : null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        byte[] key = key(email);
+        lock.readLock().lock();
+        try {
+            long offset = index.get(hash(key), candidate -> keyMatches(candidate, key));
+            return offset == OffHeapHashIndex.MISSING ? Optional.empty() : Optional.of(read(offset));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<User> findById(long id) {
+        lock.readLock().lock();
+        try {
+            long offset = idIndex.get(hash(id), candidate -> idAt(candidate) == id);
+            return offset == OffHeapHashIndex.MISSING ? Optional.empty() : Optional.of(read(offset));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(String email) {
+        deleteIfPresent(email);
+    }
+
+    @Override
+    public Optional<User> deleteIfPresent(String email) {
+        byte[] key = key(email);
+        long position = 0;
+        lock.writeLock().lock();
+        try {
+            long offset = index.get(hash(key), candidate -> keyMatches(candidate, key));
+            if (offset == OffHeapHashIndex.MISSING) {
+                return Optional.empty();
+            }
+            position = journal.append(WalRecord.delete(email));
+            User deleted = read(offset);
+            unlink(key, offset);
+            return Optional.of(deleted);
+        } finally {
+            lock.writeLock().unlock();
+            journal.commit(position);
+        }
+    }
+
+    @Override
+    public long modificationCount() {
+        return modifications;
+    }
+
+    @Override
+    public long countByBirthDayRange(LocalDate from, LocalDate to) {
+        return birthDateCounts.countBetween(from, to);
+    }
+
+    // Filters on the birth date stored at a fixed offset and only materializes matches.
+    @Override
+    public List<User> searchByBirthDayRange(LocalDate from, LocalDate to) {
+        long fromDay = from.toEpochDay();
+        long toDay = to.toEpochDay();
+        lock.readLock().lock();
+        try {
+            List<User> users = new ArrayList<>();
+            index.forEach(offset -> {
+                long birthDay = records.chunk(offset).getLong(MappedRecordFile.position(offset) + BIRTH_DATE_OFFSET);
+                if (birthDay != NO_DATE && birthDay > fromDay && birthDay < toDay) {
+                    users.add(read(offset));
+                }
+            });
+            return users;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<User> searchPageByBirthDayRange(LocalDate from, LocalDate to, LocalDate afterBirthDate, String afterEmail, int limit) {
+        long fromDay = from.toEpochDay();
+        long toDay = to.toEpochDay();
+        PageCandidate after = afterBirthDate == null ? null : new PageCandidate(afterBirthDate.toEpochDay(), canonicalizer.canonicalize(afterEmail), 0);
+        lock.readLock().lock();
+        try {
+            return read(smallest(BY_BIRTH_DATE, limit, offset -> {
+                long birthDay = records.chunk(offset).getLong(MappedRecordFile.position(offset) + BIRTH_DATE_OFFSET);
+                if (birthDay == NO_DATE || birthDay <= fromDay || birthDay >= toDay) {
+                    return null;
+                }
+                PageCandidate candidate = new PageCandidate(birthDay, readKey(offset), offset);
+                return after == null || BY_BIRTH_DATE.compare(candidate, after) > 0 ? candidate : null;
+            }));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Like the other engines, the snapshot is read from the live store while writers go on. The offsets are
+    // taken when the journal first reads the users, which is after its cut, and the records behind them
+    // are read a batch at a time; compaction waits meanwhile, so the offsets stay valid.
+    @Override
+    public void checkpoint() {
+        checkpointLock.lock();
+        try {
+            lock.writeLock().lock();
+            try {
+                checkpointing = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            try {
+                journal.checkpoint(new AbstractCollection<>() {
+                    private long[] offsets;
+
+                    @Override
+                    public Iterator<Map.Entry<String, User>> iterator() {
+                        return entries(offsets());
+                    }
+
+                    @Override
+                    public int size() {
+                        return offsets().length;
+                    }
+
+                    private long[] offsets() {
+                        if (offsets == null) {
+                            offsets = liveOffsets();
+                        }
+                        return offsets;
+                    }
+                }, this::lastId);
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    checkpointing = false;
+                    compactIfWasteful();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        records.close();
+    }
+
+    // The bytes taken by the record file, live or not.
+    long recordBytes() {
+        lock.readLock().lock();
+        try {
+            return records.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private User put(WalRecord record) {
+        byte[] key = key(record.email());
+        long position = 0;
+        lock.writeLock().lock();
+        try {
+            long offset = index.get(hash(key), candidate -> keyMatches(candidate, key));
+            stamp(offset, record.user());
+            position = journal.append(record);
+            store(key, record.user());
+        } finally {
+            lock.writeLock().unlock();
+            journal.commit(position);
+        }
+        return record.user();
+    }
+
+    private void apply(WalRecord record) {
+        byte[] key = key(record.email());
+        if (record.operation() == WalRecord.Operation.DELETE) {
+            long offset = index.get(hash(key), candidate -> keyMatches(candidate, key));
+            if (offset != OffHeapHashIndex.MISSING) {
+                unlink(key, offset);
+            }
+        } else {
+            lastId = Math.max(lastId, record.user().getId());
+            store(key, record.user());
+        }
+    }
+
+    // A new user gets the next id and version 1; a replaced one keeps its id and bumps the version.
+    private void stamp(long oldOffset, User user) {
+        if (oldOffset == OffHeapHashIndex.MISSING) {
+            user.setId(++lastId);
+            user.setVersion(1);
+        } else {
+            user.setId(idAt(oldOffset));
+            user.setVersion(versionAt(oldOffset) + 1);
+        }
+    }
+
+    private void store(byte[] key, User user) {
+        modifications++;
+        byte[] record = encode(key, user);
+        long offset = records.append(record);
+        liveBytes += record.length;
+        long oldOffset = index.put(hash(key), offset, candidate -> keyMatches(candidate, key));
+        birthDateCounts.replace(oldOffset == OffHeapHashIndex.MISSING ? null : birthDateAt(oldOffset), user.getBirthDate());
+        long id = user.getId();
+        if (oldOffset != OffHeapHashIndex.MISSING) {
+            liveBytes -= lengthAt(oldOffset);
+            if (idAt(oldOffset) != id) {
+                long oldId = idAt(oldOffset);
+                idIndex.remove(hash(oldId), candidate -> candidate == oldOffset);
+            }
+        }
+        idIndex.put(hash(id), offset, candidate -> idAt(candidate) == id);
+        compactIfWasteful();
+    }
+
+    private void unlink(byte[] key, long offset) {
+        modifications++;
+        index.remove(hash(key), candidate -> candidate == offset);
+        liveBytes -= lengthAt(offset);
+        birthDateCounts.replace(birthDateAt(offset), null);
+        long id = idAt(offset);
+        idIndex.remove(hash(id), candidate -> candidate == offset);
+        compactIfWasteful();
+    }
+
+    // Called under the write lock.
+    private void compactIfWasteful() {
+        long waste = records.size() - liveBytes;
+        if (checkpointing || waste < MIN_COMPACTION_WASTE || waste < liveBytes) {
+            return;
+        }
+        MappedRecordFile compacted;
+        try {
+            compacted = new MappedRecordFile(recordPath(generation + 1));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compact " + directory, e);
+        }
+        OffHeapHashIndex compactedIndex = new OffHeapHashIndex(index.size() * 2);
+        OffHeapHashIndex compactedIdIndex = new OffHeapHashIndex(index.size() * 2);
+        // every key and id is unique here, so nothing needs to be matched
+        index.forEach(offset -> {
+            long newOffset = compacted.append(recordAt(offset));
+            compactedIndex.put(hash(keyAt(offset)), newOffset, candidate -> false);
+            compactedIdIndex.put(hash(idAt(offset)), newOffset, candidate -> false);
+        });
+        records.close();
+        records = compacted;
+        index = compactedIndex;
+        idIndex = compactedIdIndex;
+        liveBytes = compacted.size();
+        generation++;
+    }
+
+    private long[] liveOffsets() {
+        lock.readLock().lock();
+        try {
+            long[] offsets = new long[index.size()];
+            int[] count = new int[1];
+            index.forEach(offset -> offsets[count[0]++] = offset);
+            return offsets;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Records of users written since the offsets were taken are read as they were then. The offsets are
+    // taken after the checkpoint's cut, so the journal segment after it has the newer version.
+    private Iterator<Map.Entry<String, User>> entries(long[] offsets) {
+        return new Iterator<>() {
+            private final List<Map.Entry<String, User>> batch = new ArrayList<>(CHECKPOINT_BATCH_SIZE);
+            private int next;
+            private int read;
+
+            @Override
+            public boolean hasNext() {
+                return next < batch.size() || read < offsets.length;
+            }
+
+            @Override
+            public Map.Entry<String, User> next() {
+                if (next == batch.size()) {
+                    if (read == offsets.length) {
+                        throw new NoSuchElementException();
+                    }
+                    batch.clear();
+                    next = 0;
+                    int end = Math.min(offsets.length, read + CHECKPOINT_BATCH_SIZE);
+                    lock.readLock().lock();
+                    try {
+                        for (; read < end; read++) {
+                            batch.add(Map.entry(readKey(offsets[read]), read(offsets[read])));
+                        }
+                    } finally {
+                        lock.readLock().unlock();
+                    }
+                }
+                return batch.get(next++);
+            }
+        };
+    }
+
+    private long lastId() {
+        lock.readLock().lock();
+        try {
+            return lastId;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Path recordPath(int generation) {
+        return directory.resolve(String.format("users-%d.dat", generation & 1));
+    }
+
+    private boolean keyMatches(long offset, byte[] key) {
+        ByteBuffer chunk = records.chunk(offset);
+        int position = MappedRecordFile.position(offset) + KEY_OFFSET;
+        if (chunk.getInt(position) != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (chunk.get(position + 4 + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int lengthAt(long offset) {
+        return records.chunk(offset).getInt(MappedRecordFile.position(offset));
+    }
+
+    private byte[] recordAt(long offset) {
+        byte[] record = new byte[lengthAt(offset)];
+        records.chunk(offset).get(MappedRecordFile.position(offset), record);
+        return record;
+    }
+
+    private long idAt(long offset) {
+        return records.chunk(offset).getLong(MappedRecordFile.position(offset) + ID_OFFSET);
+    }
+
+    private LocalDate birthDateAt(long offset) {
+        long birthDay = records.chunk(offset).getLong(MappedRecordFile.position(offset) + BIRTH_DATE_OFFSET);
+        return birthDay == NO_DATE ? null : LocalDate.ofEpochDay(birthDay);
+    }
+
+    private long versionAt(long offset) {
+        return records.chunk(offset).getLong(MappedRecordFile.position(offset) + VERSION_OFFSET);
+    }
+
+    private String readKey(long offset) {
+        return new String(keyAt(offset), StandardCharsets.UTF_8);
+    }
+
+    private byte[] keyAt(long offset) {
+        ByteBuffer chunk = records.chunk(offset);
+        int position = MappedRecordFile.position(offset) + KEY_OFFSET;
+        byte[] bytes = new byte[chunk.getInt(position)];
+        chunk.get(position + 4, bytes);
+        return bytes;
+    }
+
+    // There is no ordered index off-heap, so a page is the `limit` smallest candidates,
+    // kept in a bounded heap while scanning: O(n log limit) time but only O(limit) memory.
+    private List<PageCandidate> smallest(Comparator<PageCandidate> order, int limit, LongFunction<PageCandidate> candidateAt) {
+        PriorityQueue<PageCandidate> candidates = new PriorityQueue<>(limit + 1, order.reversed());
+        index.forEach(offset -> {
+            PageCandidate candidate = candidateAt.apply(offset);
+            if (candidate == null) {
+                return;
+            }
+            if (candidates.size() < limit) {
+                candidates.add(candidate);
+            } else if (order.compare(candidate, candidates.peek()) < 0) {
+                candidates.poll();
+                candidates.add(candidate);
+            }
+        });
+        List<PageCandidate> page = new ArrayList<>(candidates);
+        page.sort(order);
+        return page;
+    }
+
+    private List<User> read(List<PageCandidate> page) {
+        List<User> users = new ArrayList<>(page.size());
+        for (PageCandidate candidate : page) {
+            users.add(read(candidate.offset()));
+        }
+        return users;
+    }
+
+    private User read(long offset) {
+        ByteBuffer chunk = records.chunk(offset);
+        int position = MappedRecordFile.position(offset);
+        User user = new User();
+        user.setId(chunk.getLong(position + ID_OFFSET));
+        user.setBirthDate(birthDateAt(offset));
+        user.setVersion(chunk.getLong(position + VERSION_OFFSET));
+        position += KEY_OFFSET;
+        position += 4 + Math.max(0, chunk.getInt(position));
+        String[] fields = new String[5];
+        for (int i = 0; i < fields.length; i++) {
+            int length = chunk.getInt(position);
+            position += 4;
+            if (length >= 0) {
+                byte[] bytes = new byte[length];
+                chunk.get(position, bytes);
+                fields[i] = new String(bytes, StandardCharsets.UTF_8);
+                position += length;
+            }
+        }
+        user.setEmail(fields[0]);
+        user.setFirstName(fields[1]);
+        user.setLastName(fields[2]);
+        user.setAddress(fields[3]);
+        user.setPhoneNumber(fields[4]);
+        return user;
+    }
+
+    private static byte[] encode(byte[] key, User user) {
+        byte[][] fields = {key, utf8(user.getEmail()), utf8(user.getFirstName()), utf8(user.getLastName()),
+                utf8(user.getAddress()), utf8(user.getPhoneNumber())};
+        int length = KEY_OFFSET;
+        for (byte[] field : fields) {
+            length += 4 + (field == null ? 0 : field.length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(length);
+        buffer.putLong(user.getId());
+        buffer.putLong(user.getBirthDate() == null ? NO_DATE : user.getBirthDate().toEpochDay());
+        buffer.putLong(user.getVersion());
+        for (byte[] field : fields) {
+            if (field == null) {
+                buffer.putInt(-1);
+            } else {
+                buffer.putInt(field.length);
+                buffer.put(field);
+            }
+        }
+        return buffer.array();
+    }
+
+    private byte[] key(String email) {
+        return utf8(canonicalizer.canonicalize(email));
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private record PageCandidate(long birthDay, String email, long offset) {
+    }
+
+    private static long hash(long id) {
+        return avalanche(id);
+    }
+
+    // 64-bit FNV-1a with a final avalanche, so both halves are usable as slot bits
+    private static long hash(byte[] key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        return avalanche(hash);
+    }
+
+    private static long avalanche(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        return hash ^ hash >>> 33;
+    }
+}
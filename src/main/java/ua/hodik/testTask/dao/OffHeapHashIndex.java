@@ -0,0 +1,142 @@
+package ua.hodik.testTask.dao;
+
+import java.nio.ByteBuffer;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+
+// Open-addressing hash -> record offset table in direct memory, 16 bytes per slot and no objects per entry.
+// Hashes can collide, so callers confirm a candidate offset with a key matcher. Not thread-safe.
+final class OffHeapHashIndex {
+    static final long MISSING = -1;
+    private static final int SLOT_SIZE = 16;
+    private static final long EMPTY_HASH = 0;
+    private static final long TOMBSTONE = -1;
+    private static final double MAX_LOAD = 0.6;
+
+    private ByteBuffer table;
+    private int capacity;
+    private int size;
+    private int used;
+
+    OffHeapHashIndex(int initialCapacity) {
+        allocate(Integer.highestOneBit(Math.max(16, initialCapacity) - 1) << 1);
+    }
+
+    long get(long hash, LongPredicate keyMatcher) {
+        hash = nonEmpty(hash);
+        for (int slot = slotOf(hash); ; slot = next(slot)) {
+            long slotHash = table.getLong(slot * SLOT_SIZE);
+            if (slotHash == EMPTY_HASH) {
+                return MISSING;
+            }
+            long offset = table.getLong(slot * SLOT_SIZE + 8);
+            if (slotHash == hash && offset != TOMBSTONE && keyMatcher.test(offset)) {
+                return offset;
+            }
+        }
+    }
+
+    // Returns the replaced offset, or MISSING if the key was not present.
+    long put(long hash, long offset, LongPredicate keyMatcher) {
+        if (used + 1 > capacity * MAX_LOAD) {
+            rehash(size + 1 > capacity * MAX_LOAD / 2 ? capacity * 2 : capacity);
+        }
+        hash = nonEmpty(hash);
+        int free = -1;
+        for (int slot = slotOf(hash); ; slot = next(slot)) {
+            long slotHash = table.getLong(slot * SLOT_SIZE);
+            long slotOffset = table.getLong(slot * SLOT_SIZE + 8);
+            if (slotHash == EMPTY_HASH) {
+                if (free < 0) {
+                    free = slot;
+                    used++;
+                }
+                write(free, hash, offset);
+                size++;
+                return MISSING;
+            }
+            if (slotOffset == TOMBSTONE) {
+                if (free < 0) {
+                    free = slot;
+                }
+            } else if (slotHash == hash && keyMatcher.test(slotOffset)) {
+                write(slot, hash, offset);
+                return slotOffset;
+            }
+        }
+    }
+
+    long remove(long hash, LongPredicate keyMatcher) {
+        hash = nonEmpty(hash);
+        for (int slot = slotOf(hash); ; slot = next(slot)) {
+            long slotHash = table.getLong(slot * SLOT_SIZE);
+            if (slotHash == EMPTY_HASH) {
+                return MISSING;
+            }
+            long offset = table.getLong(slot * SLOT_SIZE + 8);
+            if (slotHash == hash && offset != TOMBSTONE && keyMatcher.test(offset)) {
+                table.putLong(slot * SLOT_SIZE + 8, TOMBSTONE);
+                size--;
+                return offset;
+            }
+        }
+    }
+
+    void forEach(LongConsumer consumer) {
+        for (int slot = 0; slot < capacity; slot++) {
+            if (table.getLong(slot * SLOT_SIZE) != EMPTY_HASH) {
+                long offset = table.getLong(slot * SLOT_SIZE + 8);
+                if (offset != TOMBSTONE) {
+                    consumer.accept(offset);
+                }
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void rehash(int newCapacity) {
+        ByteBuffer old = table;
+        int oldCapacity = capacity;
+        allocate(newCapacity);
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            long hash = old.getLong(slot * SLOT_SIZE);
+            long offset = old.getLong(slot * SLOT_SIZE + 8);
+            if (hash != EMPTY_HASH && offset != TOMBSTONE) {
+                int target = slotOf(hash);
+                while (table.getLong(target * SLOT_SIZE) != EMPTY_HASH) {
+                    target = next(target);
+                }
+                write(target, hash, offset);
+                size++;
+                used++;
+            }
+        }
+    }
+
+    private void allocate(int newCapacity) {
+        capacity = newCapacity;
+        table = ByteBuffer.allocateDirect(newCapacity * SLOT_SIZE);
+        size = 0;
+        used = 0;
+    }
+
+    private void write(int slot, long hash, long offset) {
+        table.putLong(slot * SLOT_SIZE, hash);
+        table.putLong(slot * SLOT_SIZE + 8, offset);
+    }
+
+    private int slotOf(long hash) {
+        return (int) (hash ^ (hash >>> 32)) & (capacity - 1);
+    }
+
+    private int next(int slot) {
+        return (slot + 1) & (capacity - 1);
+    }
+
+    private static long nonEmpty(long hash) {
+        return hash == EMPTY_HASH ? 1 : hash;
+    }
+}
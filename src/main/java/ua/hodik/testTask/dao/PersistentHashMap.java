@@ -0,0 +1,194 @@
+package ua.hodik.testTask.dao;
+
+import java.util.Arrays;
+
+// An immutable hash array mapped trie: 32-way nodes indexed by 5 hash bits per level, each holding only
+// the slots in use. put and remove copy the few nodes on the path to the key and share the rest,
+// so a lookup stays a handful of array reads while every version stays valid for whoever holds it.
+final class PersistentHashMap<K, V> {
+    private static final int BITS = 5;
+    private static final int HASH_BITS = 32;
+    private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(new Bitmap(0, new Object[0]), 0);
+
+    // a Bitmap node; its slots hold Entries, Bitmaps and, below the last hash bit, Collisions
+    private final Bitmap root;
+    private final int size;
+
+    private PersistentHashMap(Bitmap root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(K key) {
+        int hash = hash(key);
+        Object node = root;
+        for (int shift = 0; ; shift += BITS) {
+            if (node instanceof Bitmap bitmap) {
+                int bit = bit(hash, shift);
+                if ((bitmap.bits & bit) == 0) {
+                    return null;
+                }
+                node = bitmap.slots[bitmap.index(bit)];
+            } else if (node instanceof Entry entry) {
+                return entry.hash == hash && entry.key.equals(key) ? (V) entry.value : null;
+            } else {
+                Entry entry = ((Collision) node).find(key);
+                return entry == null ? null : (V) entry.value;
+            }
+        }
+    }
+
+    PersistentHashMap<K, V> put(K key, V value) {
+        boolean[] added = new boolean[1];
+        Bitmap newRoot = (Bitmap) put(root, 0, new Entry(hash(key), key, value), added);
+        return new PersistentHashMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    PersistentHashMap<K, V> remove(K key) {
+        if (get(key) == null) {
+            return this;
+        }
+        // the root never collapses into an Entry, it is only emptied
+        Bitmap newRoot = (Bitmap) remove(root, 0, hash(key), key);
+        return newRoot == null ? empty() : new PersistentHashMap<>(newRoot, size - 1);
+    }
+
+    private static Object put(Object node, int shift, Entry entry, boolean[] added) {
+        if (node instanceof Collision collision) {
+            Entry[] entries = collision.entries;
+            for (int i = 0; i < entries.length; i++) {
+                if (entries[i].key.equals(entry.key)) {
+                    Entry[] copy = entries.clone();
+                    copy[i] = entry;
+                    return new Collision(copy);
+                }
+            }
+            added[0] = true;
+            Entry[] copy = Arrays.copyOf(entries, entries.length + 1);
+            copy[entries.length] = entry;
+            return new Collision(copy);
+        }
+        Bitmap bitmap = (Bitmap) node;
+        int bit = bit(entry.hash, shift);
+        int index = bitmap.index(bit);
+        if ((bitmap.bits & bit) == 0) {
+            added[0] = true;
+            Object[] slots = new Object[bitmap.slots.length + 1];
+            System.arraycopy(bitmap.slots, 0, slots, 0, index);
+            slots[index] = entry;
+            System.arraycopy(bitmap.slots, index, slots, index + 1, bitmap.slots.length - index);
+            return new Bitmap(bitmap.bits | bit, slots);
+        }
+        Object slot = bitmap.slots[index];
+        Object newSlot;
+        if (slot instanceof Entry existing) {
+            if (existing.hash == entry.hash && existing.key.equals(entry.key)) {
+                newSlot = entry;
+            } else {
+                added[0] = true;
+                newSlot = pair(existing, entry, shift + BITS);
+            }
+        } else {
+            newSlot = put(slot, shift + BITS, entry, added);
+        }
+        Object[] slots = bitmap.slots.clone();
+        slots[index] = newSlot;
+        return new Bitmap(bitmap.bits, slots);
+    }
+
+    private static Object pair(Entry first, Entry second, int shift) {
+        if (shift >= HASH_BITS) {
+            return new Collision(new Entry[]{first, second});
+        }
+        int firstBit = bit(first.hash, shift);
+        int secondBit = bit(second.hash, shift);
+        if (firstBit == secondBit) {
+            return new Bitmap(firstBit, new Object[]{pair(first, second, shift + BITS)});
+        }
+        Object[] slots = Integer.compareUnsigned(firstBit, secondBit) < 0
+                ? new Object[]{first, second} : new Object[]{second, first};
+        return new Bitmap(firstBit | secondBit, slots);
+    }
+
+    // Only called for a key that is present. Returns the node without the key, a lone Entry when
+    // a single entry is left so the parent can hold it directly, or null when nothing is left.
+    private static Object remove(Object node, int shift, int hash, Object key) {
+        if (node instanceof Collision collision) {
+            Entry[] entries = collision.entries;
+            if (entries.length == 2) {
+                return entries[0].key.equals(key) ? entries[1] : entries[0];
+            }
+            Entry[] copy = new Entry[entries.length - 1];
+            for (int i = 0, j = 0; i < entries.length; i++) {
+                if (!entries[i].key.equals(key)) {
+                    copy[j++] = entries[i];
+                }
+            }
+            return new Collision(copy);
+        }
+        Bitmap bitmap = (Bitmap) node;
+        int bit = bit(hash, shift);
+        int index = bitmap.index(bit);
+        Object slot = bitmap.slots[index];
+        Object newSlot = slot instanceof Entry ? null : remove(slot, shift + BITS, hash, key);
+        if (newSlot == null) {
+            if (bitmap.slots.length == 1) {
+                return null;
+            }
+            if (bitmap.slots.length == 2 && bitmap.slots[1 - index] instanceof Entry last && shift > 0) {
+                return last;
+            }
+            Object[] slots = new Object[bitmap.slots.length - 1];
+            System.arraycopy(bitmap.slots, 0, slots, 0, index);
+            System.arraycopy(bitmap.slots, index + 1, slots, index, slots.length - index);
+            return new Bitmap(bitmap.bits & ~bit, slots);
+        }
+        if (newSlot instanceof Entry entry && bitmap.slots.length == 1 && shift > 0) {
+            return entry;
+        }
+        Object[] slots = bitmap.slots.clone();
+        slots[index] = newSlot;
+        return new Bitmap(bitmap.bits, slots);
+    }
+
+    // spreads the high bits down, since the first levels only look at the low ones
+    private static int hash(Object key) {
+        int hash = key.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & ((1 << BITS) - 1));
+    }
+
+    private record Entry(int hash, Object key, Object value) {
+    }
+
+    private record Bitmap(int bits, Object[] slots) {
+        int index(int bit) {
+            return Integer.bitCount(bits & (bit - 1));
+        }
+    }
+
+    // Keys whose hashes are equal in every bit.
+    private record Collision(Entry[] entries) {
+        Entry find(Object key) {
+            for (Entry entry : entries) {
+                if (entry.key.equals(key)) {
+                    return entry;
+                }
+            }
+            return null;
+        }
+    }
+}
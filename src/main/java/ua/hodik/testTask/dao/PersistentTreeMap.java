@@ -0,0 +1,156 @@
+package ua.hodik.testTask.dao;
+
+import java.util.function.BiPredicate;
+
+// An immutable AVL tree. put and remove copy only the path to the changed node and share the rest,
+// so every version stays valid for whoever still holds it.
+final class PersistentTreeMap<K extends Comparable<? super K>, V> {
+    private static final PersistentTreeMap<?, ?> EMPTY = new PersistentTreeMap<>(null, 0);
+
+    private final Node<K, V> root;
+    private final int size;
+
+    private PersistentTreeMap(Node<K, V> root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K extends Comparable<? super K>, V> PersistentTreeMap<K, V> empty() {
+        return (PersistentTreeMap<K, V>) EMPTY;
+    }
+
+    int size() {
+        return size;
+    }
+
+    V get(K key) {
+        Node<K, V> node = root;
+        while (node != null) {
+            int order = key.compareTo(node.key);
+            if (order == 0) {
+                return node.value;
+            }
+            node = order < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    PersistentTreeMap<K, V> put(K key, V value) {
+        boolean[] added = new boolean[1];
+        Node<K, V> newRoot = put(root, key, value, added);
+        return new PersistentTreeMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    PersistentTreeMap<K, V> remove(K key) {
+        return get(key) == null ? this : new PersistentTreeMap<>(remove(root, key), size - 1);
+    }
+
+    // Visits entries in key order from lower (null: the first) up to upper (exclusive, null: the last)
+    // until the visitor returns false.
+    void forEach(K lower, boolean lowerInclusive, K upper, BiPredicate<K, V> visitor) {
+        forEach(root, lower, lowerInclusive, upper, visitor);
+    }
+
+    private static <K extends Comparable<? super K>, V> boolean forEach(Node<K, V> node, K lower, boolean lowerInclusive,
+                                                                        K upper, BiPredicate<K, V> visitor) {
+        if (node == null) {
+            return true;
+        }
+        int fromLower = lower == null ? 1 : node.key.compareTo(lower);
+        boolean belowUpper = upper == null || node.key.compareTo(upper) < 0;
+        if (fromLower > 0 && !forEach(node.left, lower, lowerInclusive, upper, visitor)) {
+            return false;
+        }
+        if ((fromLower > 0 || fromLower == 0 && lowerInclusive) && belowUpper && !visitor.test(node.key, node.value)) {
+            return false;
+        }
+        return !belowUpper || forEach(node.right, lower, lowerInclusive, upper, visitor);
+    }
+
+    private static <K extends Comparable<? super K>, V> Node<K, V> put(Node<K, V> node, K key, V value, boolean[] added) {
+        if (node == null) {
+            added[0] = true;
+            return new Node<>(key, value, null, null);
+        }
+        int order = key.compareTo(node.key);
+        if (order < 0) {
+            return balance(node.key, node.value, put(node.left, key, value, added), node.right);
+        }
+        if (order > 0) {
+            return balance(node.key, node.value, node.left, put(node.right, key, value, added));
+        }
+        return new Node<>(key, value, node.left, node.right);
+    }
+
+    // Only called for a key that is present.
+    private static <K extends Comparable<? super K>, V> Node<K, V> remove(Node<K, V> node, K key) {
+        int order = key.compareTo(node.key);
+        if (order < 0) {
+            return balance(node.key, node.value, remove(node.left, key), node.right);
+        }
+        if (order > 0) {
+            return balance(node.key, node.value, node.left, remove(node.right, key));
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        Node<K, V> successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.key, successor.value, node.left, removeFirst(node.right));
+    }
+
+    private static <K extends Comparable<? super K>, V> Node<K, V> removeFirst(Node<K, V> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.key, node.value, removeFirst(node.left), node.right);
+    }
+
+    private static <K extends Comparable<? super K>, V> Node<K, V> balance(K key, V value, Node<K, V> left, Node<K, V> right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        if (leftHeight > rightHeight + 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node<>(left.key, left.value, left.left, new Node<>(key, value, left.right, right));
+            }
+            Node<K, V> pivot = left.right;
+            return new Node<>(pivot.key, pivot.value, new Node<>(left.key, left.value, left.left, pivot.left),
+                    new Node<>(key, value, pivot.right, right));
+        }
+        if (rightHeight > leftHeight + 1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node<>(right.key, right.value, new Node<>(key, value, left, right.left), right.right);
+            }
+            Node<K, V> pivot = right.left;
+            return new Node<>(pivot.key, pivot.value, new Node<>(key, value, left, pivot.left),
+                    new Node<>(right.key, right.value, pivot.right, right.right));
+        }
+        return new Node<>(key, value, left, right);
+    }
+
+    private static int height(Node<?, ?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static final class Node<K, V> {
+        private final K key;
+        private final V value;
+        private final Node<K, V> left;
+        private final Node<K, V> right;
+        private final int height;
+
+        Node(K key, V value, Node<K, V> left, Node<K, V> right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+        }
+    }
+}
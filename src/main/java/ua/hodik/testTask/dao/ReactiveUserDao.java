@@ -0,0 +1,83 @@
+package ua.hodik.testTask.dao;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import ua.hodik.testTask.model.User;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.UnaryOperator;
+
+// UserDao for the reactive stack. Every call runs on the store scheduler instead of an event loop: writes
+// wait for the journal's commit, the mapped engine takes a read-write lock even to read, and operators
+// downstream of a call (patching, validation, mapping) go on on the same thread. Lists are read one page
+// at a time as the subscriber asks for more, so a stream holds about one page of users however large
+// the store is.
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserDao {
+    static final int PAGE_SIZE = 500;
+
+    private final UserDao userDao;
+    private final Scheduler scheduler;
+
+    @Autowired
+    public ReactiveUserDao(UserDao userDao) {
+        this(userDao, Schedulers.boundedElastic());
+    }
+
+    ReactiveUserDao(UserDao userDao, Scheduler scheduler) {
+        this.userDao = userDao;
+        this.scheduler = scheduler;
+    }
+
+    // Empty when the email is taken.
+    public Mono<User> createIfAbsent(User user) {
+        return call(() -> userDao.createIfAbsent(user).orElse(null));
+    }
+
+    // Empty when there is no such user; see UserDao.computeIfPresent.
+    public Mono<User> computeIfPresent(String email, UnaryOperator<User> remapping) {
+        return call(() -> userDao.computeIfPresent(email, remapping).orElse(null));
+    }
+
+    public Mono<User> deleteIfPresent(String email) {
+        return call(() -> userDao.deleteIfPresent(email).orElse(null));
+    }
+
+    public Mono<User> findByEmail(String email) {
+        return call(() -> userDao.findByEmail(email).orElse(null));
+    }
+
+    // Ordered by email, like findPage.
+    public Flux<User> findAll() {
+        return call(() -> userDao.findPage(null, PAGE_SIZE))
+                .expand(page -> page.nextCursor() == null
+                        ? Mono.empty()
+                        : call(() -> userDao.findPage(page.nextCursor(), PAGE_SIZE)))
+                .flatMapIterable(UserPage::users, 1);
+    }
+
+    // Ordered by birth date then email, like searchPageByBirthDayRange.
+    public Flux<User> searchByBirthDayRange(LocalDate from, LocalDate to) {
+        return call(() -> userDao.searchPageByBirthDayRange(from, to, null, null, PAGE_SIZE))
+                .expand(users -> users.size() < PAGE_SIZE
+                        ? Mono.empty()
+                        : call(() -> nextSearchPage(from, to, users.get(PAGE_SIZE - 1))))
+                .flatMapIterable(users -> users, 1);
+    }
+
+    private List<User> nextSearchPage(LocalDate from, LocalDate to, User last) {
+        return userDao.searchPageByBirthDayRange(from, to, last.getBirthDate(), last.getEmail(), PAGE_SIZE);
+    }
+
+    private <T> Mono<T> call(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(scheduler);
+    }
+}
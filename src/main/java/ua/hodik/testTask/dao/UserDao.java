@@ -5,19 +5,48 @@ import ua.hodik.testTask.model.User;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.UnaryOperator;
 
 public interface UserDao {
     User create(User user);
 
+    Optional<User> createIfAbsent(User user);
+
+    // Inserts each user whose email is not taken yet (also by an earlier user of the same batch)
+    // and returns which ones were inserted; the journal is waited on once for the whole batch.
+    boolean[] createAllIfAbsent(List<User> users);
+
+    Optional<User> updateIfPresent(String email, User user);
+
+    // Read-modify-write under the lock of that email: the function sees the stored user and its result
+    // replaces it, so concurrent calls can't lose each other's changes. If it throws, nothing is written.
+    // The function must not call back into the DAO.
+    Optional<User> computeIfPresent(String email, UnaryOperator<User> remapping);
+
+    Optional<User> deleteIfPresent(String email);
 
     User update(String email, User user);
 
     List<User> findAll();
 
+    // Users ordered by email, starting after the given one (null for the first page).
+    UserPage findPage(String afterEmail, int limit);
+
     Optional<User> findByEmail(String email);
 
+    Optional<User> findById(long id);
+
     void delete(String email);
 
+    // Grows with every completed write, so an unchanged count means the store has not changed since.
+    long modificationCount();
+
     List<User> searchByBirthDayRange(LocalDate from, LocalDate to);
 
+    // The size of searchByBirthDayRange(from, to), from counters kept up to date by every write.
+    long countByBirthDayRange(LocalDate from, LocalDate to);
+
+    // Users in the range ordered by birth date then email, starting after the given pair (nulls for the first page).
+    List<User> searchPageByBirthDayRange(LocalDate from, LocalDate to, LocalDate afterBirthDate, String afterEmail, int limit);
+
 }
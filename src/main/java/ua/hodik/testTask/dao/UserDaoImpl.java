@@ -1,51 +1,298 @@
 package ua.hodik.testTask.dao;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
+import ua.hodik.testTask.dao.wal.Checkpointable;
+import ua.hodik.testTask.dao.wal.UserJournal;
+import ua.hodik.testTask.dao.wal.WalRecord;
 import ua.hodik.testTask.model.User;
 
 import java.time.LocalDate;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
 
 @Component
-public class UserDaoImpl implements UserDao {
-    private Map<String, User> userMap = new HashMap();
+@ConditionalOnProperty(name = "userStore.engine", havingValue = "heap", matchIfMissing = true)
+public class UserDaoImpl implements UserDao, Checkpointable {
+    // ConcurrentHashMap locks a single bin per write and never locks on get,
+    // so writers on different emails don't contend and readers never wait.
+    // Keyed by the canonical email, so every spelling of an address finds the same user.
+    // Stored keys keep their cached String hash, so a probe only hashes the request string once.
+    private final ConcurrentMap<String, User> userMap = new ConcurrentHashMap<>();
+    // Secondary indexes and the journal are only touched inside compute on the primary map,
+    // so they change under the same bin lock as the user they describe. That lock is a monitor and pins
+    // a virtual thread to its carrier, so nothing inside compute blocks for long: append only queues
+    // the record, and the wait for fsync happens in commit once compute has returned.
+    private final BirthDateIndex birthDateIndex = new BirthDateIndex();
+    private final BirthDateCounts birthDateCounts = new BirthDateCounts();
+    private final NavigableSet<String> emailIndex = new ConcurrentSkipListSet<>();
+    private final UserIdIndex idIndex = new UserIdIndex();
+    private final AtomicLong lastId = new AtomicLong();
+    // bumped after compute returns, so a reader that sees the new count also sees the write
+    private final AtomicLong modifications = new AtomicLong();
+    private final UserJournal journal;
+    private final EmailCanonicalizer canonicalizer;
+
+    public UserDaoImpl() {
+        this(UserJournal.NONE);
+    }
+
+    public UserDaoImpl(UserJournal journal) {
+        this(journal, new EmailCanonicalizer(EmailCanonicalizer.LocalPartPolicy.LOWERCASE));
+    }
+
+    @Autowired
+    public UserDaoImpl(UserJournal journal, EmailCanonicalizer canonicalizer) {
+        this.journal = journal;
+        this.canonicalizer = canonicalizer;
+        long snapshotLastId = journal.replay(this::apply);
+        lastId.accumulateAndGet(snapshotLastId, Math::max);
+    }
 
     @Override
     public User create(User user) {
-        userMap.put(user.getEmail(), user);
-        return user;
+        return put(WalRecord.create(user.getEmail(), user));
     }
 
+    @Override
+    public Optional<User> createIfAbsent(User user) {
+        long[] position = new long[1];
+        User stored;
+        try {
+            stored = userMap.computeIfAbsent(canonicalizer.canonicalize(user.getEmail()), key -> {
+                stamp(null, user);
+                position[0] = journal.append(WalRecord.create(key, user));
+                updateIndexes(key, null, user);
+                return user;
+            });
+            if (stored == user) {
+                modifications.incrementAndGet();
+            }
+        } finally {
+            journal.commit(position[0]);
+        }
+        return stored == user ? Optional.of(user) : Optional.empty();
+    }
+
+    @Override
+    public boolean[] createAllIfAbsent(List<User> users) {
+        boolean[] created = new boolean[users.size()];
+        long[] positions = new long[users.size()];
+        try {
+            for (int i = 0; i < users.size(); i++) {
+                User user = users.get(i);
+                int index = i;
+                created[i] = userMap.computeIfAbsent(canonicalizer.canonicalize(user.getEmail()), key -> {
+                    stamp(null, user);
+                    positions[index] = journal.append(WalRecord.create(key, user));
+                    updateIndexes(key, null, user);
+                    return user;
+                }) == user;
+                if (created[i]) {
+                    modifications.incrementAndGet();
+                }
+            }
+        } finally {
+            // the first commit waits for a group write that already holds the rest of the batch
+            for (long position : positions) {
+                journal.commit(position);
+            }
+        }
+        return created;
+    }
 
     @Override
     public User update(String email, User user) {
-         userMap.put(email, user);
-         return user;
+        return put(WalRecord.update(email, user));
+    }
+
+    @Override
+    public Optional<User> updateIfPresent(String email, User user) {
+        long[] position = new long[1];
+        User updated;
+        try {
+            updated = userMap.computeIfPresent(canonicalizer.canonicalize(email), (key, oldUser) -> {
+                stamp(oldUser, user);
+                position[0] = journal.append(WalRecord.update(key, user));
+                updateIndexes(key, oldUser, user);
+                return user;
+            });
+            if (updated != null) {
+                modifications.incrementAndGet();
+            }
+        } finally {
+            journal.commit(position[0]);
+        }
+        return Optional.ofNullable(updated);
+    }
+
+    @Override
+    public Optional<User> computeIfPresent(String email, UnaryOperator<User> remapping) {
+        long[] position = new long[1];
+        User updated;
+        try {
+            updated = userMap.computeIfPresent(canonicalizer.canonicalize(email), (key, oldUser) -> {
+                User user = remapping.apply(oldUser);
+                stamp(oldUser, user);
+                position[0] = journal.append(WalRecord.update(key, user));
+                updateIndexes(key, oldUser, user);
+                return user;
+            });
+            if (updated != null) {
+                modifications.incrementAndGet();
+            }
+        } finally {
+            journal.commit(position[0]);
+        }
+        return Optional.ofNullable(updated);
     }
 
     @Override
     public List<User> findAll() {
-        return userMap.values().stream().toList();
+        return List.copyOf(userMap.values());
+    }
+
+    @Override
+    public UserPage findPage(String afterEmail, int limit) {
+        NavigableSet<String> emails = afterEmail == null ? emailIndex
+                : emailIndex.tailSet(canonicalizer.canonicalize(afterEmail), false);
+        List<User> users = new ArrayList<>(limit);
+        String lastEmail = null;
+        for (String email : emails) {
+            User user = userMap.get(email);
+            if (user != null) {
+                users.add(user);
+                lastEmail = email;
+                if (users.size() == limit) {
+                    return new UserPage(users, lastEmail);
+                }
+            }
+        }
+        return new UserPage(users, null);
     }
 
     @Override
     public Optional<User> findByEmail(String email) {
-        return Optional.ofNullable(userMap.get(email));
+        return Optional.ofNullable(userMap.get(canonicalizer.canonicalize(email)));
+    }
+
+    @Override
+    public Optional<User> findById(long id) {
+        return Optional.ofNullable(idIndex.get(id));
     }
 
     @Override
     public void delete(String email) {
-        userMap.remove(email);
+        deleteIfPresent(email);
+    }
+
+    @Override
+    public Optional<User> deleteIfPresent(String email) {
+        long[] position = new long[1];
+        User[] removed = new User[1];
+        try {
+            userMap.computeIfPresent(canonicalizer.canonicalize(email), (key, oldUser) -> {
+                position[0] = journal.append(WalRecord.delete(key));
+                updateIndexes(key, oldUser, null);
+                removed[0] = oldUser;
+                return null;
+            });
+            if (removed[0] != null) {
+                modifications.incrementAndGet();
+            }
+        } finally {
+            journal.commit(position[0]);
+        }
+        return Optional.ofNullable(removed[0]);
+    }
+
+    @Override
+    public long modificationCount() {
+        return modifications.get();
     }
 
     @Override
     public List<User> searchByBirthDayRange(LocalDate from, LocalDate to) {
-        return userMap.values().stream()
-                .filter(user -> user.getBirthDate().isAfter(from) && user.getBirthDate().isBefore(to))
-                .collect(Collectors.toList());
+        return birthDateIndex.search(from, to);
+    }
+
+    @Override
+    public long countByBirthDayRange(LocalDate from, LocalDate to) {
+        return birthDateCounts.countBetween(from, to);
+    }
+
+    @Override
+    public List<User> searchPageByBirthDayRange(LocalDate from, LocalDate to, LocalDate afterBirthDate, String afterEmail, int limit) {
+        return birthDateIndex.page(from, to, afterBirthDate, canonicalizer.canonicalize(afterEmail), limit);
+    }
+
+    private User put(WalRecord record) {
+        long[] position = new long[1];
+        try {
+            userMap.compute(canonicalizer.canonicalize(record.email()), (key, oldUser) -> {
+                stamp(oldUser, record.user());
+                position[0] = journal.append(record);
+                updateIndexes(key, oldUser, record.user());
+                return record.user();
+            });
+            modifications.incrementAndGet();
+        } finally {
+            journal.commit(position[0]);
+        }
+        return record.user();
+    }
+
+    @Override
+    public void checkpoint() {
+        journal.checkpoint(userMap.entrySet(), lastId::get);
+    }
+
+    // Replayed emails are canonicalized again, so a log written under another local-part policy still loads.
+    private void apply(WalRecord record) {
+        if (record.user() != null) {
+            lastId.accumulateAndGet(record.user().getId(), Math::max);
+        }
+        String key = canonicalizer.canonicalize(record.email());
+        if (record.operation() == WalRecord.Operation.DELETE) {
+            updateIndexes(key, userMap.remove(key), null);
+        } else {
+            updateIndexes(key, userMap.put(key, record.user()), record.user());
+        }
+    }
+
+    // A new user gets the next id and version 1; a replaced one keeps its id and bumps the version.
+    // Replayed records already carry both, so this only runs for live writes.
+    private void stamp(User oldUser, User newUser) {
+        if (oldUser == null) {
+            newUser.setId(lastId.incrementAndGet());
+            newUser.setVersion(1);
+        } else {
+            newUser.setId(oldUser.getId());
+            newUser.setVersion(oldUser.getVersion() + 1);
+        }
+    }
+
+    private void updateIndexes(String email, User oldUser, User newUser) {
+        birthDateIndex.replace(email, oldUser, newUser);
+        birthDateCounts.replace(oldUser == null ? null : oldUser.getBirthDate(), newUser == null ? null : newUser.getBirthDate());
+        if (oldUser != null && (newUser == null || oldUser.getId() != newUser.getId())) {
+            idIndex.remove(oldUser.getId());
+        }
+        if (newUser != null) {
+            idIndex.put(newUser.getId(), newUser);
+        }
+        if (oldUser == null && newUser != null) {
+            emailIndex.add(email);
+        } else if (oldUser != null && newUser == null) {
+            emailIndex.remove(email);
+        }
     }
 }
@@ -0,0 +1,73 @@
+package ua.hodik.testTask.dao;
+
+import ua.hodik.testTask.model.User;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Ids are handed out densely from 1, so the index is a direct-address table split into pages:
+// a lookup is two array reads with no hashing and no boxed keys. Pages are allocated on first use
+// and published through AtomicReferenceArray, so reads take no lock.
+class UserIdIndex {
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private final ReentrantLock growLock = new ReentrantLock();
+    private volatile AtomicReferenceArray<AtomicReferenceArray<User>> pages = new AtomicReferenceArray<>(16);
+
+    User get(long id) {
+        AtomicReferenceArray<User> page = page(id);
+        return page == null ? null : page.get((int) (id & (PAGE_SIZE - 1)));
+    }
+
+    void put(long id, User user) {
+        if (id <= 0) {
+            return;
+        }
+        AtomicReferenceArray<User> page = page(id);
+        if (page == null) {
+            page = createPage(id);
+        }
+        page.set((int) (id & (PAGE_SIZE - 1)), user);
+    }
+
+    void remove(long id) {
+        AtomicReferenceArray<User> page = page(id);
+        if (page != null) {
+            page.set((int) (id & (PAGE_SIZE - 1)), null);
+        }
+    }
+
+    private AtomicReferenceArray<User> page(long id) {
+        long pageIndex = id >>> PAGE_BITS;
+        AtomicReferenceArray<AtomicReferenceArray<User>> current = pages;
+        return id <= 0 || pageIndex >= current.length() ? null : current.get((int) pageIndex);
+    }
+
+    // Growing copies the page references into a larger directory; both hold the same page objects,
+    // so a write through either one is seen by readers of the other.
+    private AtomicReferenceArray<User> createPage(long id) {
+        growLock.lock();
+        try {
+            int pageIndex = Math.toIntExact(id >>> PAGE_BITS);
+            AtomicReferenceArray<AtomicReferenceArray<User>> current = pages;
+            if (pageIndex >= current.length()) {
+                AtomicReferenceArray<AtomicReferenceArray<User>> grown =
+                        new AtomicReferenceArray<>(Math.max(pageIndex + 1, current.length() * 2));
+                for (int i = 0; i < current.length(); i++) {
+                    grown.set(i, current.get(i));
+                }
+                pages = grown;
+                current = grown;
+            }
+            AtomicReferenceArray<User> page = current.get(pageIndex);
+            if (page == null) {
+                page = new AtomicReferenceArray<>(PAGE_SIZE);
+                current.set(pageIndex, page);
+            }
+            return page;
+        } finally {
+            growLock.unlock();
+        }
+    }
+}
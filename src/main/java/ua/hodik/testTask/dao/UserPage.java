@@ -0,0 +1,9 @@
+package ua.hodik.testTask.dao;
+
+import ua.hodik.testTask.model.User;
+
+import java.util.List;
+
+// nextCursor is null on the last page
+public record UserPage(List<User> users, String nextCursor) {
+}
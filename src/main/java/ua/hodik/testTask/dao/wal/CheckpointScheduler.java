@@ -0,0 +1,38 @@
+package ua.hodik.testTask.dao.wal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+public class CheckpointScheduler implements AutoCloseable {
+    private final ScheduledExecutorService executor;
+
+    public CheckpointScheduler(List<Checkpointable> stores, long intervalMs) {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-store-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (Checkpointable store : stores) {
+            executor.scheduleWithFixedDelay(() -> checkpoint(store), intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // A task that throws is never run again, so a failed checkpoint is logged and retried on the next interval.
+    private static void checkpoint(Checkpointable store) {
+        try {
+            store.checkpoint();
+        } catch (RuntimeException e) {
+            log.error("Checkpoint of {} failed", store.getClass().getSimpleName(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,5 @@
+package ua.hodik.testTask.dao.wal;
+
+public interface Checkpointable {
+    void checkpoint();
+}
@@ -0,0 +1,10 @@
+package ua.hodik.testTask.dao.wal;
+
+public enum FsyncPolicy {
+    // fsync before a write is acknowledged; concurrent writers share one fsync
+    ALWAYS,
+    // fsync in the background every fsyncIntervalMs; a crash loses at most that window
+    INTERVAL,
+    // never fsync explicitly, leave flushing to the OS page cache
+    OS
+}
@@ -0,0 +1,70 @@
+package ua.hodik.testTask.dao.wal;
+
+import ua.hodik.testTask.model.User;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+final class SnapshotFile {
+    private static final int MAGIC = 0x55534E51;
+
+    private SnapshotFile() {
+    }
+
+    // Written to a temporary file and renamed once forced, so a crash never leaves a partial snapshot.
+    // Each user is saved under the key the store holds it by, which a replayed record must land on again.
+    static void write(Path path, Collection<Map.Entry<String, User>> users, long lastId) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CheckedOutputStream checked = new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(MAGIC);
+            out.writeLong(lastId);
+            for (Map.Entry<String, User> entry : users) {
+                out.writeBoolean(true);
+                out.writeUTF(entry.getKey());
+                WalRecordCodec.writeUser(out, entry.getValue());
+            }
+            out.writeBoolean(false);
+            out.flush();
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Returns the last allocated user id stored in the snapshot.
+    static long read(Path path, Consumer<WalRecord> consumer) throws IOException {
+        try (InputStream file = new BufferedInputStream(Files.newInputStream(path), 1 << 16)) {
+            CheckedInputStream checked = new CheckedInputStream(file, new CRC32());
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a user snapshot: " + path);
+            }
+            long lastId = in.readLong();
+            while (in.readBoolean()) {
+                String email = in.readUTF();
+                consumer.accept(WalRecord.create(email, WalRecordCodec.readUser(in)));
+            }
+            long expected = checked.getChecksum().getValue();
+            if (new DataInputStream(file).readLong() != expected) {
+                throw new IOException("Corrupted user snapshot: " + path);
+            }
+            return lastId;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package ua.hodik.testTask.dao.wal;
+
+import ua.hodik.testTask.model.User;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+public interface UserJournal extends AutoCloseable {
+
+    UserJournal NONE = new UserJournal() {
+        @Override
+        public long append(WalRecord record) {
+            return 0;
+        }
+
+        @Override
+        public void commit(long position) {
+        }
+
+        @Override
+        public long replay(Consumer<WalRecord> consumer) {
+            return 0;
+        }
+
+        @Override
+        public void checkpoint(Collection<Map.Entry<String, User>> users, LongSupplier lastId) {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    // Called while the caller still holds the per-key lock, so the log order matches the map order.
+    long append(WalRecord record);
+
+    // Called exactly once per append, after the change is visible in the store (position 0 is ignored).
+    // Blocks until the record is as durable as the fsync policy promises.
+    void commit(long position);
+
+    // Returns the last allocated user id saved with the snapshot (0 without one), which may belong
+    // to a user deleted before the snapshot and therefore be higher than any replayed id.
+    long replay(Consumer<WalRecord> consumer);
+
+    // Writes a snapshot of the live store and drops the log it covers; writers keep running meanwhile.
+    // users and lastId are read only after the cut, once every write before it is in the store, so a
+    // store may take its view of them lazily.
+    void checkpoint(Collection<Map.Entry<String, User>> users, LongSupplier lastId);
+
+    @Override
+    void close();
+}
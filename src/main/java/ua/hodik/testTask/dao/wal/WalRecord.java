@@ -0,0 +1,22 @@
+package ua.hodik.testTask.dao.wal;
+
+import ua.hodik.testTask.model.User;
+
+public record WalRecord(Operation operation, String email, User user) {
+
+    public enum Operation {
+        CREATE, UPDATE, DELETE
+    }
+
+    public static WalRecord create(String email, User user) {
+        return new WalRecord(Operation.CREATE, email, user);
+    }
+
+    public static WalRecord update(String email, User user) {
+        return new WalRecord(Operation.UPDATE, email, user);
+    }
+
+    public static WalRecord delete(String email) {
+        return new WalRecord(Operation.DELETE, email, null);
+    }
+}
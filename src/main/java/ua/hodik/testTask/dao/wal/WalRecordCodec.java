@@ -0,0 +1,104 @@
+package ua.hodik.testTask.dao.wal;
+
+import ua.hodik.testTask.model.User;
+
+import java.io.*;
+import java.time.LocalDate;
+import java.util.zip.CRC32;
+
+final class WalRecordCodec {
+    // length + crc32
+    static final int HEADER_SIZE = 8;
+    static final int MAX_RECORD_SIZE = 1 << 20;
+
+    private WalRecordCodec() {
+    }
+
+    static byte[] encode(WalRecord record) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeByte(record.operation().ordinal());
+            out.writeUTF(record.email());
+            if (record.operation() != WalRecord.Operation.DELETE) {
+                writeUser(out, record.user());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] frame = bytes.toByteArray();
+        int payloadSize = frame.length - HEADER_SIZE;
+        writeInt(frame, 0, payloadSize);
+        writeInt(frame, 4, checksum(frame, HEADER_SIZE, payloadSize));
+        return frame;
+    }
+
+    // Returns null for a torn or corrupted frame, which marks the end of the usable log.
+    static WalRecord decode(byte[] payload, int checksum) {
+        if (checksum(payload, 0, payload.length) != checksum) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            WalRecord.Operation operation = WalRecord.Operation.values()[in.readUnsignedByte()];
+            String email = in.readUTF();
+            User user = operation == WalRecord.Operation.DELETE ? null : readUser(in);
+            return new WalRecord(operation, email, user);
+        } catch (IOException | ArrayIndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    static void writeUser(DataOutput out, User user) throws IOException {
+        out.writeLong(user.getId());
+        out.writeLong(user.getVersion());
+        writeNullableString(out, user.getEmail());
+        writeNullableString(out, user.getFirstName());
+        writeNullableString(out, user.getLastName());
+        out.writeBoolean(user.getBirthDate() != null);
+        if (user.getBirthDate() != null) {
+            out.writeLong(user.getBirthDate().toEpochDay());
+        }
+        writeNullableString(out, user.getAddress());
+        writeNullableString(out, user.getPhoneNumber());
+    }
+
+    static User readUser(DataInput in) throws IOException {
+        User user = new User();
+        user.setId(in.readLong());
+        user.setVersion(in.readLong());
+        user.setEmail(readNullableString(in));
+        user.setFirstName(readNullableString(in));
+        user.setLastName(readNullableString(in));
+        if (in.readBoolean()) {
+            user.setBirthDate(LocalDate.ofEpochDay(in.readLong()));
+        }
+        user.setAddress(readNullableString(in));
+        user.setPhoneNumber(readNullableString(in));
+        return user;
+    }
+
+    private static void writeNullableString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static int checksum(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+}
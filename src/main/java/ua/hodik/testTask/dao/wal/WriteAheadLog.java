@@ -0,0 +1,393 @@
+package ua.hodik.testTask.dao.wal;
+
+import ua.hodik.testTask.model.User;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+public class WriteAheadLog implements UserJournal {
+    private static final String SEGMENT_PREFIX = "users-";
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    // marks the point in the pending queue where the writer switches to a new segment
+    private static final byte[] ROLL = new byte[0];
+
+    private final Path directory;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final Thread writer;
+    // owned by the writer thread after construction
+    private FileChannel channel;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition pendingAvailable = lock.newCondition();
+    private final Condition synced = lock.newCondition();
+    private List<byte[]> pending = new ArrayList<>();
+    private long appended;
+    private long durable;
+    private long lastSegment;
+    private long activeSegment;
+    private boolean closed;
+    private IOException failure;
+
+    // Appends not yet committed, split by checkpoint epoch. A checkpoint flips the epoch when it
+    // rolls the segment and then waits only for the previous epoch to drain.
+    private final AtomicLong[] inFlight = {new AtomicLong(), new AtomicLong()};
+    private int epoch;
+    private long rollPosition;
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+
+    public WriteAheadLog(Path directory, FsyncPolicy fsyncPolicy, long fsyncIntervalMs) throws IOException {
+        this.directory = directory;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMs);
+        Files.createDirectories(directory);
+        List<Path> segments = list(SEGMENT_PREFIX, SEGMENT_SUFFIX);
+        // a crash between writing snapshot S and creating segment S leaves only older segments,
+        // which replay skips, so appends go to the snapshot's segment at the earliest
+        lastSegment = Math.max(1, newestSnapshot());
+        if (!segments.isEmpty()) {
+            lastSegment = Math.max(lastSegment, sequenceOf(segments.get(segments.size() - 1), SEGMENT_PREFIX, SEGMENT_SUFFIX));
+        }
+        activeSegment = lastSegment;
+        Path active = segmentPath(activeSegment);
+        long validLength = Files.exists(active) ? readSegment(active, record -> {
+        }) : 0;
+        channel = FileChannel.open(active, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        // drop a record torn by a crash in the middle of a write
+        channel.truncate(validLength);
+        channel.position(validLength);
+        writer = new Thread(this::writeLoop, "user-wal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public long append(WalRecord record) {
+        byte[] frame = WalRecordCodec.encode(record);
+        lock.lock();
+        try {
+            checkOpen();
+            pending.add(frame);
+            if (pending.size() == 1) {
+                pendingAvailable.signal();
+            }
+            inFlight[epoch].incrementAndGet();
+            return ++appended;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void commit(long position) {
+        if (position == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            // a single checkpoint runs at a time and drains its epoch before the next roll,
+            // so everything at or before the last roll belongs to the previous epoch
+            inFlight[position <= rollPosition ? epoch ^ 1 : epoch].decrementAndGet();
+            while (fsyncPolicy == FsyncPolicy.ALWAYS && durable < position) {
+                if (failure != null) {
+                    throw new UncheckedIOException("Write-ahead log " + directory + " failed", failure);
+                }
+                synced.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Must run before the first append, while nothing else touches the log.
+    @Override
+    public long replay(Consumer<WalRecord> consumer) {
+        try {
+            long snapshot = newestSnapshot();
+            long lastId = snapshot > 0 ? SnapshotFile.read(snapshotPath(snapshot), consumer) : 0;
+            for (Path segment : list(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+                if (sequenceOf(segment, SEGMENT_PREFIX, SEGMENT_SUFFIX) >= snapshot) {
+                    readSegment(segment, consumer);
+                }
+            }
+            return lastId;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to replay write-ahead log " + directory, e);
+        }
+    }
+
+    // Fuzzy checkpoint: the log is cut at a new segment, and once every write appended before the cut
+    // is visible in the map, the map is copied while writers continue. Whatever the copy misses or
+    // sees early is in the new segment, and replaying it over the snapshot is idempotent.
+    @Override
+    public void checkpoint(Collection<Map.Entry<String, User>> users, LongSupplier lastId) {
+        checkpointLock.lock();
+        try {
+            long segment = roll();
+            SnapshotFile.write(snapshotPath(segment), users, lastId.getAsLong());
+            awaitSegment(segment);
+            for (Path file : list(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+                if (sequenceOf(file, SEGMENT_PREFIX, SEGMENT_SUFFIX) < segment) {
+                    Files.delete(file);
+                }
+            }
+            for (Path file : list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+                if (sequenceOf(file, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX) < segment) {
+                    Files.delete(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to checkpoint write-ahead log " + directory, e);
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            pendingAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long roll() {
+        int previousEpoch;
+        long segment;
+        lock.lock();
+        try {
+            checkOpen();
+            segment = ++lastSegment;
+            pending.add(ROLL);
+            pendingAvailable.signal();
+            previousEpoch = epoch;
+            epoch ^= 1;
+            rollPosition = appended;
+        } finally {
+            lock.unlock();
+        }
+        while (inFlight[previousEpoch].get() != 0) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+        }
+        return segment;
+    }
+
+    private void awaitSegment(long segment) throws IOException {
+        lock.lock();
+        try {
+            while (activeSegment < segment) {
+                if (failure != null) {
+                    throw failure;
+                }
+                synced.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // A single writer drains everything appended since its last pass, so concurrent
+    // writers share one write() and, with FsyncPolicy.ALWAYS, one force().
+    private void writeLoop() {
+        List<byte[]> batch = new ArrayList<>();
+        long forced = 0;
+        long lastForce = System.nanoTime();
+        try {
+            while (true) {
+                long batchEnd;
+                boolean stopping;
+                lock.lock();
+                try {
+                    if (pending.isEmpty() && !closed) {
+                        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+                            pendingAvailable.awaitNanos(fsyncIntervalNanos);
+                        } else {
+                            pendingAvailable.await();
+                        }
+                    }
+                    List<byte[]> drained = pending;
+                    pending = batch;
+                    batch = drained;
+                    batchEnd = appended;
+                    stopping = closed;
+                } finally {
+                    lock.unlock();
+                }
+                write(batch);
+                batch.clear();
+                long now = System.nanoTime();
+                boolean forceDue = fsyncPolicy == FsyncPolicy.ALWAYS || stopping
+                        || fsyncPolicy == FsyncPolicy.INTERVAL && now - lastForce >= fsyncIntervalNanos;
+                if (batchEnd > forced && forceDue) {
+                    channel.force(false);
+                    forced = batchEnd;
+                    lastForce = now;
+                    markDurable(forced);
+                }
+                if (stopping) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            fail(e);
+        } catch (InterruptedException e) {
+            fail(new InterruptedIOException("Write-ahead log writer interrupted"));
+        }
+    }
+
+    private void write(List<byte[]> batch) throws IOException {
+        int from = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.get(i) == ROLL) {
+                write(batch, from, i);
+                rollChannel();
+                from = i + 1;
+            }
+        }
+        write(batch, from, batch.size());
+    }
+
+    private void write(List<byte[]> batch, int from, int to) throws IOException {
+        if (from == to) {
+            return;
+        }
+        ByteBuffer[] buffers = new ByteBuffer[to - from];
+        long remaining = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = ByteBuffer.wrap(batch.get(from + i));
+            remaining += buffers[i].remaining();
+        }
+        while (remaining > 0) {
+            remaining -= channel.write(buffers);
+        }
+    }
+
+    private void rollChannel() throws IOException {
+        channel.force(false);
+        channel.close();
+        long next;
+        lock.lock();
+        try {
+            next = activeSegment + 1;
+        } finally {
+            lock.unlock();
+        }
+        channel = FileChannel.open(segmentPath(next), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        lock.lock();
+        try {
+            activeSegment = next;
+            synced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void markDurable(long position) {
+        lock.lock();
+        try {
+            durable = position;
+            synced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void fail(IOException e) {
+        lock.lock();
+        try {
+            failure = e;
+            synced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkOpen() {
+        if (failure != null) {
+            throw new UncheckedIOException("Write-ahead log " + directory + " failed", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Write-ahead log " + directory + " is closed");
+        }
+    }
+
+    private long newestSnapshot() throws IOException {
+        List<Path> snapshots = list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        return snapshots.isEmpty() ? 0 : sequenceOf(snapshots.get(snapshots.size() - 1), SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+    }
+
+    private List<Path> list(String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(prefix) && name.endsWith(suffix);
+            }).sorted().toList();
+        }
+    }
+
+    private Path segmentPath(long sequence) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+    }
+
+    private Path snapshotPath(long sequence) {
+        return directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, sequence, SNAPSHOT_SUFFIX));
+    }
+
+    private static long sequenceOf(Path path, String prefix, String suffix) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+    }
+
+    // Returns the length of the valid prefix; reading stops at the first torn or corrupted record.
+    private static long readSegment(Path segment, Consumer<WalRecord> consumer) throws IOException {
+        long validLength = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment), 1 << 16))) {
+            while (true) {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length <= 0 || length > WalRecordCodec.MAX_RECORD_SIZE) {
+                    return validLength;
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                WalRecord record = WalRecordCodec.decode(payload, checksum);
+                if (record == null) {
+                    return validLength;
+                }
+                consumer.accept(record);
+                validLength += WalRecordCodec.HEADER_SIZE + length;
+            }
+        } catch (EOFException e) {
+            return validLength;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package ua.hodik.testTask.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BirthDateBucketDto {
+    // "1990" for a year bucket, "1990-05" for a month bucket
+    private String period;
+    private long count;
+}
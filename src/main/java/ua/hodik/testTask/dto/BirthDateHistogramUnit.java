@@ -0,0 +1,5 @@
+package ua.hodik.testTask.dto;
+
+public enum BirthDateHistogramUnit {
+    YEAR, MONTH
+}
@@ -0,0 +1,26 @@
+package ua.hodik.testTask.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ua.hodik.testTask.exceptions.ValidationError;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkImportFailureDto {
+    // position of the record in the request body, starting at 0
+    private int index;
+    private String email;
+    private String message;
+    // only set when the record failed validation
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<ValidationError> errors;
+
+    public BulkImportFailureDto(int index, String email, String message) {
+        this(index, email, message, List.of());
+    }
+}
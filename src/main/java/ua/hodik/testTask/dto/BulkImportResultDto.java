@@ -0,0 +1,16 @@
+package ua.hodik.testTask.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkImportResultDto {
+    private int received;
+    private int imported;
+    private List<BulkImportFailureDto> failures;
+}
@@ -0,0 +1,5 @@
+package ua.hodik.testTask.dto;
+
+// A UserDto already written as JSON, with the version its ETag is built from.
+public record SerializedUserDto(long version, byte[] json) {
+}
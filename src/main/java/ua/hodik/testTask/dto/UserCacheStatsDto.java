@@ -0,0 +1,16 @@
+package ua.hodik.testTask.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserCacheStatsDto {
+    private long hits;
+    private long misses;
+    private double hitRate;
+    private long evictions;
+    private long entries;
+}
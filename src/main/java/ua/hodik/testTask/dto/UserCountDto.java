@@ -0,0 +1,12 @@
+package ua.hodik.testTask.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserCountDto {
+    private long count;
+}
@@ -1,10 +1,12 @@
 package ua.hodik.testTask.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Past;
+import jakarta.validation.constraints.Size;
 import lombok.Builder;
 import lombok.Data;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -13,21 +15,33 @@ import java.time.LocalDate;
 
 @Data
 public class UserDto {
+    // every string of a user is written to the journal with a 2-byte length, which these bounds stay under
+    public static final int MAX_NAME_LENGTH = 255;
+    public static final int MAX_ADDRESS_LENGTH = 1000;
+    public static final int MAX_PHONE_NUMBER_LENGTH = 32;
+    private static final String TOO_LONG = "Should be at most {max} characters";
 
     private long id;
+    // sent as the ETag header, not in the body
+    @JsonIgnore
+    private long version;
     @NotBlank(message = "Should not be empty")
     @Email
     private String email;
     @NotBlank(message = "Should not be empty")
+    @Size(max = MAX_NAME_LENGTH, message = TOO_LONG)
     private String firstName;
     @NotBlank(message = "Should not be empty")
+    @Size(max = MAX_NAME_LENGTH, message = TOO_LONG)
     private String lastName;
     @Past(message = "date has to be in past")
     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
     @JsonFormat(pattern = "dd.MM.yyyy")
     @NotNull(message = "Should not be empty")
     private LocalDate birthDate;
+    @Size(max = MAX_ADDRESS_LENGTH, message = TOO_LONG)
     private String address;
+    @Size(max = MAX_PHONE_NUMBER_LENGTH, message = TOO_LONG)
     private String phoneNumber;
 
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package ua.hodik.testTask.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserPageDto {
+    private List<UserDto> users;
+    private String nextCursor;
+}
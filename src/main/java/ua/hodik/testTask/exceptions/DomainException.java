@@ -0,0 +1,27 @@
+package ua.hodik.testTask.exceptions;
+
+// Errors that routine traffic runs into: unknown users, duplicates, invalid input. ExceptionHandlingController
+// turns them into a response and nothing prints their trace, so they skip filling one in through the whole
+// servlet call stack. A cause, when given, keeps its own trace.
+public abstract class DomainException extends RuntimeException {
+
+    protected DomainException() {
+        super(null, null, false, false);
+    }
+
+    protected DomainException(String message) {
+        super(message, null, false, false);
+    }
+
+    protected DomainException(String message, Throwable cause) {
+        super(message, cause, false, false);
+    }
+
+    protected DomainException(Throwable cause) {
+        super(cause == null ? null : cause.toString(), cause, false, false);
+    }
+
+    protected DomainException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+}
@@ -1,10 +1,20 @@
 package ua.hodik.testTask.exceptions;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 @AllArgsConstructor
 public class ErrorResponse {
     private String message;
+    // only set for validation failures
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<ValidationError> errors;
+
+    public ErrorResponse(String message) {
+        this(message, List.of());
+    }
 }
@@ -1,24 +1,41 @@
 package ua.hodik.testTask.exceptions;
 
-public class InvalidDataException extends RuntimeException{
+import java.util.List;
+
+public class InvalidDataException extends DomainException {
+    private final List<ValidationError> errors;
 
     public InvalidDataException() {
         super();
+        this.errors = List.of();
     }
 
     public InvalidDataException(String message) {
         super(message);
+        this.errors = List.of();
+    }
+
+    public InvalidDataException(List<ValidationError> errors) {
+        super(ValidationError.describe(errors));
+        this.errors = errors;
     }
 
     public InvalidDataException(String message, Throwable cause) {
         super(message, cause);
+        this.errors = List.of();
     }
 
     public InvalidDataException(Throwable cause) {
         super(cause);
+        this.errors = List.of();
     }
 
     protected InvalidDataException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
         super(message, cause, enableSuppression, writableStackTrace);
+        this.errors = List.of();
+    }
+
+    public List<ValidationError> getErrors() {
+        return errors;
     }
 }
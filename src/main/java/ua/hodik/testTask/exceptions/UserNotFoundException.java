@@ -1,6 +1,6 @@
 package ua.hodik.testTask.exceptions;
 
-public class UserNotFoundException extends RuntimeException {
+public class UserNotFoundException extends DomainException {
     public UserNotFoundException(String message) {
         super(message);
     }
@@ -1,6 +1,6 @@
 package ua.hodik.testTask.exceptions;
 
-public class UserNotUpdatedException extends RuntimeException {
+public class UserNotUpdatedException extends DomainException {
     public UserNotUpdatedException(String message, Exception e) {
         super(message, e);
     }
@@ -0,0 +1,11 @@
+package ua.hodik.testTask.exceptions;
+
+public class UserVersionMismatchException extends DomainException {
+    public UserVersionMismatchException(String message) {
+        super(message);
+    }
+
+    public UserVersionMismatchException() {
+    }
+
+}
@@ -0,0 +1,16 @@
+package ua.hodik.testTask.exceptions;
+
+import java.util.List;
+
+// One rejected field: code is the constraint that failed (e.g. "NotBlank"), message the text for people.
+public record ValidationError(String field, String code, String message) {
+
+    // "field - message;" per error, the form clients already read from ErrorResponse.message.
+    public static String describe(List<ValidationError> errors) {
+        StringBuilder message = new StringBuilder();
+        for (ValidationError error : errors) {
+            message.append(error.field()).append(" - ").append(error.message()).append(";");
+        }
+        return message.toString();
+    }
+}
@@ -13,6 +13,8 @@ import java.time.LocalDate;
 public class User {
 
     private long id;
+    // assigned by the DAO: 1 on create, +1 on every update
+    private long version;
     private String email;
 
     private String FirstName;
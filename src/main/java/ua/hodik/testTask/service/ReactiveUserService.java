@@ -0,0 +1,82 @@
+package ua.hodik.testTask.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import ua.hodik.testTask.dao.EmailCanonicalizer;
+import ua.hodik.testTask.dao.ReactiveUserDao;
+import ua.hodik.testTask.dto.DateFormDto;
+import ua.hodik.testTask.dto.UserDto;
+import ua.hodik.testTask.exceptions.UserAlreadyExistsException;
+import ua.hodik.testTask.util.AbstractValidator;
+import ua.hodik.testTask.util.UserMapper;
+import ua.hodik.testTask.util.UserPatch;
+
+// The UserService operations the reactive controller serves, with the same rules and errors.
+// There is no UserJsonCache or UserListSnapshot here: lists are streamed from the store instead.
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserService {
+    private final ReactiveUserDao userDao;
+    private final UserMapper userMapper;
+    private final UserUpdates userUpdates;
+
+    public ReactiveUserService(ReactiveUserDao userDao, ObjectMapper objectMapper, UserMapper userMapper,
+                               @Qualifier("userValidator") AbstractValidator userValidator,
+                               EmailCanonicalizer canonicalizer) {
+        this.userDao = userDao;
+        this.userMapper = userMapper;
+        this.userUpdates = new UserUpdates(objectMapper, userMapper, userValidator, canonicalizer);
+    }
+
+    public Mono<UserDto> createUser(UserDto userDto) {
+        return userDao.createIfAbsent(userMapper.convertToUser(userDto))
+                .switchIfEmpty(Mono.error(() -> new UserAlreadyExistsException(
+                        String.format("User with email %s already exists ", userDto.getEmail()))))
+                .map(userMapper::convertToUserDto);
+    }
+
+    public Flux<UserDto> findAllUsers() {
+        return userDao.findAll().map(userMapper::convertToUserDto);
+    }
+
+    public Mono<UserDto> patchUpdate(String email, UserPatch patch) {
+        return patchUpdate(email, patch, UserUpdates.ANY_VERSION);
+    }
+
+    // Read, patch and write again whenever another write got in between; see UserUpdates.
+    public Mono<UserDto> patchUpdate(String email, UserPatch patch, long expectedVersion) {
+        return userDao.findByEmail(email)
+                .switchIfEmpty(Mono.error(() -> UserUpdates.userNotFound(email)))
+                .flatMap(stored -> userDao.computeIfPresent(email,
+                        UserUpdates.writeIfUnchanged(stored, userUpdates.patch(email, patch, stored, expectedVersion))))
+                .retryWhen(Retry.indefinitely().filter(UserUpdates.ConcurrentUpdate.class::isInstance))
+                .switchIfEmpty(Mono.error(() -> UserUpdates.userNotFound(email)))
+                .map(userMapper::convertToUserDto);
+    }
+
+    public Mono<UserDto> update(String email, UserDto userDto) {
+        return update(email, userDto, UserUpdates.ANY_VERSION);
+    }
+
+    public Mono<UserDto> update(String email, UserDto userDto, long expectedVersion) {
+        userUpdates.checkReplacementEmail(email, userDto);
+        return userDao.computeIfPresent(email, userUpdates.replace(email, userDto, expectedVersion))
+                .switchIfEmpty(Mono.error(() -> UserUpdates.userNotFound(email)))
+                .map(userMapper::convertToUserDto);
+    }
+
+    public Mono<Void> delete(String email) {
+        return userDao.deleteIfPresent(email)
+                .switchIfEmpty(Mono.error(() -> UserUpdates.userNotFound(email)))
+                .then();
+    }
+
+    public Flux<UserDto> searchByDateRange(DateFormDto dateForm) {
+        return userDao.searchByBirthDayRange(dateForm.getFrom(), dateForm.getTo()).map(userMapper::convertToUserDto);
+    }
+}
@@ -0,0 +1,123 @@
+package ua.hodik.testTask.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import ua.hodik.testTask.dao.UserDao;
+import ua.hodik.testTask.dto.BulkImportFailureDto;
+import ua.hodik.testTask.dto.BulkImportResultDto;
+import ua.hodik.testTask.dto.UserDto;
+import ua.hodik.testTask.exceptions.InvalidDataException;
+import ua.hodik.testTask.exceptions.ValidationError;
+import ua.hodik.testTask.model.User;
+import ua.hodik.testTask.util.AbstractValidator;
+import ua.hodik.testTask.util.UserMapper;
+import ua.hodik.testTask.util.ValidationResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+// Reads a JSON array or NDJSON body record by record and imports it in batches:
+// each batch is converted and validated in parallel, then inserted with a single DAO call.
+// A bad record is reported with its index and skipped; only unparseable JSON fails the request.
+@Service
+public class UserImportService {
+    static final int BATCH_SIZE = 1000;
+
+    private final UserDao userDao;
+    private final ObjectMapper objectMapper;
+    private final UserMapper userMapper;
+    private final AbstractValidator userValidator;
+
+    public UserImportService(UserDao userDao, ObjectMapper objectMapper, UserMapper userMapper,
+                             @Qualifier("userValidator") AbstractValidator userValidator) {
+        this.userDao = userDao;
+        this.objectMapper = objectMapper;
+        this.userMapper = userMapper;
+        this.userValidator = userValidator;
+    }
+
+    public BulkImportResultDto importUsers(InputStream body) {
+        List<BulkImportFailureDto> failures = new ArrayList<>();
+        List<JsonNode> batch = new ArrayList<>(BATCH_SIZE);
+        int received = 0;
+        int imported = 0;
+        // a root-level array is unwrapped, so both formats come out as a sequence of records
+        try (MappingIterator<JsonNode> records = objectMapper.readerFor(JsonNode.class).readValues(body)) {
+            while (records.hasNextValue()) {
+                batch.add(records.nextValue());
+                if (batch.size() == BATCH_SIZE) {
+                    imported += importBatch(batch, received, failures);
+                    received += batch.size();
+                    batch.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new InvalidDataException(String.format("Malformed JSON after record %d: %s", received + batch.size(),
+                    e.getMessage()), e);
+        }
+        imported += importBatch(batch, received, failures);
+        received += batch.size();
+        failures.sort(Comparator.comparingInt(BulkImportFailureDto::getIndex));
+        return new BulkImportResultDto(received, imported, failures);
+    }
+
+    private int importBatch(List<JsonNode> batch, int firstIndex, List<BulkImportFailureDto> failures) {
+        Object[] checked = new Object[batch.size()];
+        IntStream.range(0, batch.size()).parallel().forEach(i -> checked[i] = check(batch.get(i), firstIndex + i));
+        List<User> users = new ArrayList<>(batch.size());
+        List<Integer> indexes = new ArrayList<>(batch.size());
+        for (int i = 0; i < checked.length; i++) {
+            if (checked[i] instanceof BulkImportFailureDto failure) {
+                failures.add(failure);
+            } else {
+                users.add((User) checked[i]);
+                indexes.add(firstIndex + i);
+            }
+        }
+        boolean[] created = userDao.createAllIfAbsent(users);
+        int imported = 0;
+        for (int i = 0; i < created.length; i++) {
+            if (created[i]) {
+                imported++;
+            } else {
+                String email = users.get(i).getEmail();
+                failures.add(new BulkImportFailureDto(indexes.get(i), email,
+                        String.format("User with email %s already exists ", email)));
+            }
+        }
+        return imported;
+    }
+
+    // Returns the User to insert, or the failure describing why the record is rejected.
+    private Object check(JsonNode record, int index) {
+        // null, numbers and arrays would bind to a null UserDto or fail inside Jackson with its own wording
+        if (record == null || !record.isObject()) {
+            return new BulkImportFailureDto(index, null, String.format("Malformed record: expected a JSON object, got %s",
+                    record == null ? "null" : record.getNodeType().name().toLowerCase(Locale.ROOT)));
+        }
+        JsonNode email = record.get("email");
+        UserDto userDto;
+        try {
+            userDto = objectMapper.treeToValue(record, UserDto.class);
+        } catch (JsonProcessingException e) {
+            return new BulkImportFailureDto(index, email == null ? null : email.asText(),
+                    String.format("Malformed record: %s", e.getOriginalMessage()));
+        }
+        ValidationResult result = new ValidationResult();
+        userValidator.check(userDto, result);
+        if (result.hasErrors()) {
+            List<ValidationError> errors = result.getErrors();
+            return new BulkImportFailureDto(index, userDto.getEmail(), ValidationError.describe(errors), errors);
+        }
+        return userMapper.convertToUser(userDto);
+    }
+}
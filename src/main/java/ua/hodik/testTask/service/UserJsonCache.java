@@ -0,0 +1,80 @@
+package ua.hodik.testTask.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ua.hodik.testTask.dao.EmailCanonicalizer;
+import ua.hodik.testTask.dto.SerializedUserDto;
+import ua.hodik.testTask.dto.UserCacheStatsDto;
+import ua.hodik.testTask.model.User;
+import ua.hodik.testTask.util.UserMapper;
+
+import java.io.UncheckedIOException;
+
+// Serialized UserDto JSON of recently read users. An entry only answers for the exact stored user it was
+// built from (same id and version), so a racing writer can at worst cause a miss, never a stale body;
+// writes still invalidate the email to free the space. Caffeine evicts by W-TinyLFU, bounded by
+// userCache.maxBytes of JSON when set, otherwise by userCache.maxEntries.
+@Component
+public class UserJsonCache {
+    private final Cache<String, Entry> cache;
+    private final ObjectMapper objectMapper;
+    private final UserMapper userMapper;
+    private final EmailCanonicalizer canonicalizer;
+
+    public UserJsonCache(ObjectMapper objectMapper, UserMapper userMapper, EmailCanonicalizer canonicalizer,
+                         @Value("${userCache.maxEntries:10000}") long maxEntries,
+                         @Value("${userCache.maxBytes:0}") long maxBytes) {
+        this.objectMapper = objectMapper;
+        this.userMapper = userMapper;
+        this.canonicalizer = canonicalizer;
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
+        if (maxBytes > 0) {
+            builder.maximumWeight(maxBytes).weigher((String email, Entry entry) -> entry.json().length);
+        } else {
+            builder.maximumSize(maxEntries);
+        }
+        this.cache = builder.build();
+    }
+
+    public SerializedUserDto get(User user) {
+        String email = canonicalizer.canonicalize(user.getEmail());
+        // a stale entry is dropped without touching the stats, so the lookup below counts it as a miss
+        Entry stale = cache.policy().getIfPresentQuietly(email);
+        if (stale != null && !stale.isOf(user)) {
+            cache.asMap().remove(email, stale);
+        }
+        Entry entry = cache.get(email, key -> new Entry(user.getId(), user.getVersion(), serialize(user)));
+        // another version was cached in between
+        byte[] json = entry.isOf(user) ? entry.json() : serialize(user);
+        return new SerializedUserDto(user.getVersion(), json);
+    }
+
+    public void invalidate(String email) {
+        cache.invalidate(canonicalizer.canonicalize(email));
+    }
+
+    public UserCacheStatsDto stats() {
+        CacheStats stats = cache.stats();
+        return new UserCacheStatsDto(stats.hitCount(), stats.missCount(), stats.hitRate(),
+                stats.evictionCount(), cache.estimatedSize());
+    }
+
+    private byte[] serialize(User user) {
+        try {
+            return objectMapper.writeValueAsBytes(userMapper.convertToUserDto(user));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Entry(long id, long version, byte[] json) {
+        boolean isOf(User user) {
+            return id == user.getId() && version == user.getVersion();
+        }
+    }
+}
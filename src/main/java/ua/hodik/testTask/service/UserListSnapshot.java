@@ -0,0 +1,65 @@
+package ua.hodik.testTask.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import ua.hodik.testTask.dao.UserDao;
+import ua.hodik.testTask.dto.UserDto;
+import ua.hodik.testTask.util.UserMapper;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+// The GET /users body, serialized once per state of the store. It is tagged with the DAO modification
+// count read before the users were, so a write that lands during a rebuild moves the count on and
+// the next read rebuilds again; between writes every read returns the same bytes.
+@Component
+public class UserListSnapshot {
+    private final UserDao userDao;
+    private final UserMapper userMapper;
+    private final ObjectMapper objectMapper;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private volatile Snapshot snapshot = new Snapshot(-1, null);
+
+    public UserListSnapshot(UserDao userDao, UserMapper userMapper, ObjectMapper objectMapper) {
+        this.userDao = userDao;
+        this.userMapper = userMapper;
+        this.objectMapper = objectMapper;
+    }
+
+    public byte[] get() {
+        Snapshot current = snapshot;
+        if (current.version() == userDao.modificationCount()) {
+            return current.json();
+        }
+        return rebuild();
+    }
+
+    // One rebuild at a time; readers queued behind it find it fresh and return its bytes. A rebuild
+    // serializes every user, so the queue waits on a lock rather than a monitor that would pin the
+    // carrier of each waiting virtual thread.
+    private byte[] rebuild() {
+        rebuildLock.lock();
+        try {
+            long version = userDao.modificationCount();
+            Snapshot current = snapshot;
+            if (current.version() == version) {
+                return current.json();
+            }
+            List<UserDto> users = userDao.findAll().stream().map(userMapper::convertToUserDto).toList();
+            try {
+                current = new Snapshot(version, objectMapper.writeValueAsBytes(users));
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+            snapshot = current;
+            return current.json();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private record Snapshot(long version, byte[] json) {
+    }
+}
@@ -1,21 +1,52 @@
 package ua.hodik.testTask.service;
 
-import com.github.fge.jsonpatch.JsonPatch;
+import ua.hodik.testTask.dto.BirthDateBucketDto;
+import ua.hodik.testTask.dto.BirthDateHistogramUnit;
 import ua.hodik.testTask.dto.DateFormDto;
+import ua.hodik.testTask.dto.SerializedUserDto;
+import ua.hodik.testTask.dto.UserCacheStatsDto;
+import ua.hodik.testTask.dto.UserCountDto;
 import ua.hodik.testTask.dto.UserDto;
+import ua.hodik.testTask.dto.UserPageDto;
+import ua.hodik.testTask.util.UserPatch;
 
 import java.util.List;
 
 public interface UserService {
-    UserDto patchUpdate(String email, JsonPatch jsonPatch);
+    UserDto patchUpdate(String email, UserPatch patch);
+
+    // Applies the patch only if the stored user still has expectedVersion.
+    UserDto patchUpdate(String email, UserPatch patch, long expectedVersion);
 
     UserDto createUser(UserDto userDTO);
 
     List<UserDto> findAllUsers();
 
+    // The findAllUsers list as JSON, reused until the store changes.
+    byte[] findAllUsersJson();
+
+    UserPageDto findPage(String cursor, int limit);
+
     UserDto update(String email, UserDto userDto);
 
+    // Replaces the user only if the stored one still has expectedVersion.
+    UserDto update(String email, UserDto userDto, long expectedVersion);
+
+    // Single-user reads return the JSON body from UserJsonCache.
+    SerializedUserDto findByEmail(String email);
+
+    SerializedUserDto findById(long id);
+
+    UserCacheStatsDto getCacheStats();
+
     void delete(String email);
 
     List<UserDto> searchByDateRange(DateFormDto dateForm);
+
+    UserPageDto searchPageByDateRange(DateFormDto dateForm, String cursor, int limit);
+
+    // Aggregates over the same range as searchByDateRange, answered from counters without reading users.
+    UserCountDto countByDateRange(DateFormDto dateForm);
+
+    List<BirthDateBucketDto> histogramByDateRange(DateFormDto dateForm, BirthDateHistogramUnit unit);
 }
@@ -1,61 +1,83 @@
 package ua.hodik.testTask.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.github.fge.jsonpatch.JsonPatch;
-import com.github.fge.jsonpatch.JsonPatchException;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
-import org.springframework.validation.BeanPropertyBindingResult;
-import org.springframework.validation.BindingResult;
+import ua.hodik.testTask.dao.EmailCanonicalizer;
 import ua.hodik.testTask.dao.UserDao;
+import ua.hodik.testTask.dao.UserPage;
+import ua.hodik.testTask.dto.BirthDateBucketDto;
+import ua.hodik.testTask.dto.BirthDateHistogramUnit;
 import ua.hodik.testTask.dto.DateFormDto;
+import ua.hodik.testTask.dto.SerializedUserDto;
+import ua.hodik.testTask.dto.UserCacheStatsDto;
+import ua.hodik.testTask.dto.UserCountDto;
 import ua.hodik.testTask.dto.UserDto;
+import ua.hodik.testTask.dto.UserPageDto;
+import ua.hodik.testTask.exceptions.InvalidDataException;
 import ua.hodik.testTask.exceptions.UserAlreadyExistsException;
 import ua.hodik.testTask.exceptions.UserNotFoundException;
-import ua.hodik.testTask.exceptions.UserNotUpdatedException;
+import ua.hodik.testTask.exceptions.ValidationError;
 import ua.hodik.testTask.model.User;
 import ua.hodik.testTask.util.AbstractValidator;
 import ua.hodik.testTask.util.UserMapper;
+import ua.hodik.testTask.util.UserPatch;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
 public class UserServiceImpl implements UserService {
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_HISTOGRAM_BUCKETS = 2400;
+    private static final char SEARCH_CURSOR_SEPARATOR = ':';
     private final UserDao userDao;
-    private final ObjectMapper objectMapper;
     private final UserMapper userMapper;
-    private final AbstractValidator userValidator;
+    private final UserUpdates userUpdates;
+    private final UserJsonCache userJsonCache;
+    private final UserListSnapshot userListSnapshot;
 
 
     public UserServiceImpl(UserDao userDao, ObjectMapper objectMapper, UserMapper userMapper,
-                           @Qualifier("userValidator") AbstractValidator userValidator) {
+                           @Qualifier("userValidator") AbstractValidator userValidator, EmailCanonicalizer canonicalizer,
+                           UserJsonCache userJsonCache, UserListSnapshot userListSnapshot) {
         this.userDao = userDao;
-        this.objectMapper = objectMapper;
         this.userMapper = userMapper;
-        this.userValidator = userValidator;
+        this.userUpdates = new UserUpdates(objectMapper, userMapper, userValidator, canonicalizer);
+        this.userJsonCache = userJsonCache;
+        this.userListSnapshot = userListSnapshot;
     }
 
 
     @Override
-    public UserDto patchUpdate(String email, JsonPatch jsonPatch) {
-        User user = userDao.findByEmail(email)
-                .orElseThrow(() -> new UserNotFoundException(String.format("User with email %s not found", email)));
-        UserDto userDtoToUpdate = patchUser(email, jsonPatch, user);
-        BindingResult errors = new BeanPropertyBindingResult(userDtoToUpdate, "userDtoToUpdate");
-        userValidator.validate(userDtoToUpdate, errors);
-        return update(email, userDtoToUpdate);
+    public UserDto patchUpdate(String email, UserPatch patch) {
+        return patchUpdate(email, patch, UserUpdates.ANY_VERSION);
+    }
 
+    @Override
+    public UserDto patchUpdate(String email, UserPatch patch, long expectedVersion) {
+        while (true) {
+            User stored = userDao.findByEmail(email).orElseThrow(() -> userNotFound(email));
+            User patched = userUpdates.patch(email, patch, stored, expectedVersion);
+            try {
+                User updatedUser = userDao.computeIfPresent(email, UserUpdates.writeIfUnchanged(stored, patched))
+                        .orElseThrow(() -> userNotFound(email));
+                userJsonCache.invalidate(email);
+                return userMapper.convertToUserDto(updatedUser);
+            } catch (UserUpdates.ConcurrentUpdate e) {
+                // patch the user written in between
+            }
+        }
     }
 
     @Override
     public UserDto createUser(UserDto userDTO) {
-        if (userDao.findByEmail(userDTO.getEmail()).isPresent()) {
-            throw new UserAlreadyExistsException(String.format("User with email %s already exists ", userDTO.getEmail()));
-        }
-        User user = userDao.create(userMapper.convertToUser(userDTO));
+        User user = userDao.createIfAbsent(userMapper.convertToUser(userDTO))
+                .orElseThrow(() -> new UserAlreadyExistsException(String.format("User with email %s already exists ", userDTO.getEmail())));
         return userMapper.convertToUserDto(user);
     }
 
@@ -65,17 +87,58 @@ public class UserServiceImpl implements UserService {
         return getUserDtoList(users);
     }
 
+    @Override
+    public byte[] findAllUsersJson() {
+        return userListSnapshot.get();
+    }
+
+    @Override
+    public UserPageDto findPage(String cursor, int limit) {
+        checkLimit(limit);
+        UserPage page = userDao.findPage(cursor, limit);
+        return new UserPageDto(getUserDtoList(page.users()), page.nextCursor());
+    }
+
     @Override
     public UserDto update(String email, UserDto userDto) {
-        isUserExists(email);
-        User updatedUser = userDao.update(email, userMapper.convertToUser(userDto));
+        userUpdates.checkReplacementEmail(email, userDto);
+        User updatedUser = userDao.updateIfPresent(email, userMapper.convertToUser(userDto))
+                .orElseThrow(() -> userNotFound(email));
+        userJsonCache.invalidate(email);
+        return userMapper.convertToUserDto(updatedUser);
+    }
+
+    @Override
+    public UserDto update(String email, UserDto userDto, long expectedVersion) {
+        userUpdates.checkReplacementEmail(email, userDto);
+        User updatedUser = userDao.computeIfPresent(email, userUpdates.replace(email, userDto, expectedVersion))
+                .orElseThrow(() -> userNotFound(email));
+        userJsonCache.invalidate(email);
         return userMapper.convertToUserDto(updatedUser);
     }
 
+    @Override
+    public SerializedUserDto findByEmail(String email) {
+        User user = userDao.findByEmail(email).orElseThrow(() -> userNotFound(email));
+        return userJsonCache.get(user);
+    }
+
+    @Override
+    public SerializedUserDto findById(long id) {
+        User user = userDao.findById(id)
+                .orElseThrow(() -> new UserNotFoundException(String.format("User with id %d not found", id)));
+        return userJsonCache.get(user);
+    }
+
+    @Override
+    public UserCacheStatsDto getCacheStats() {
+        return userJsonCache.stats();
+    }
+
     @Override
     public void delete(String email) {
-        isUserExists(email);
-        userDao.delete(email);
+        userDao.deleteIfPresent(email).orElseThrow(() -> userNotFound(email));
+        userJsonCache.invalidate(email);
     }
 
     @Override
@@ -86,28 +149,80 @@ public class UserServiceImpl implements UserService {
         return getUserDtoList(users);
     }
 
-    private UserDto patchUser(String email, JsonPatch jsonPatch, User user) {
-        UserDto userDto = userMapper.convertToUserDto(user);
-        UserDto userDtoToUpdate;
-        try {
-            userDtoToUpdate = applyPatchToUser(jsonPatch, userDto);
-        } catch (JsonPatchException | JsonProcessingException e) {
-            throw new UserNotUpdatedException(String.format("User with email %s not updated", email), e);
+    @Override
+    public UserPageDto searchPageByDateRange(DateFormDto dateForm, String cursor, int limit) {
+        checkLimit(limit);
+        LocalDate afterBirthDate = null;
+        String afterEmail = null;
+        if (cursor != null) {
+            int separator = cursor.indexOf(SEARCH_CURSOR_SEPARATOR);
+            try {
+                afterBirthDate = LocalDate.parse(cursor.substring(0, Math.max(separator, 0)));
+            } catch (DateTimeParseException e) {
+                throw invalid("cursor", "Cursor", String.format("Invalid cursor %s", cursor));
+            }
+            afterEmail = cursor.substring(separator + 1);
         }
-        return userDtoToUpdate;
-    }
-
-    private UserDto applyPatchToUser(JsonPatch patch, UserDto targetUser) throws JsonPatchException, JsonProcessingException {
-        JsonNode node = objectMapper.convertValue(targetUser, JsonNode.class);
-        JsonNode patched = patch.apply(node);
-        return objectMapper.treeToValue(patched, UserDto.class);
+        List<User> users = userDao.searchPageByBirthDayRange(dateForm.getFrom(), dateForm.getTo(), afterBirthDate, afterEmail, limit);
+        return new UserPageDto(getUserDtoList(users), users.size() == limit ? searchCursor(users.get(limit - 1)) : null);
     }
 
     private List<UserDto> getUserDtoList(List<User> users) {
         return users.stream().map(userMapper::convertToUserDto).toList();
     }
 
-    private void isUserExists(String email) {
-        userDao.findByEmail(email).orElseThrow(() -> new UserNotFoundException(String.format("User with email %s not found", email)));
+    // The search order is (birth date, email), so the cursor carries both: "2000-01-31:user@mail.com".
+    private static String searchCursor(User user) {
+        return user.getBirthDate().toString() + SEARCH_CURSOR_SEPARATOR + user.getEmail();
+    }
+
+    @Override
+    public UserCountDto countByDateRange(DateFormDto dateForm) {
+        return new UserCountDto(userDao.countByBirthDayRange(dateForm.getFrom(), dateForm.getTo()));
+    }
+
+    // One bucket per year or month with a day inside the range, counted only over the days of the range.
+    @Override
+    public List<BirthDateBucketDto> histogramByDateRange(DateFormDto dateForm, BirthDateHistogramUnit unit) {
+        LocalDate from = dateForm.getFrom();
+        LocalDate to = dateForm.getTo();
+        LocalDate firstDay = from.plusDays(1);
+        if (!firstDay.isBefore(to)) {
+            return new ArrayList<>();
+        }
+        LocalDate periodStart = unit == BirthDateHistogramUnit.YEAR
+                ? firstDay.withDayOfYear(1) : firstDay.withDayOfMonth(1);
+        ChronoUnit step = unit == BirthDateHistogramUnit.YEAR ? ChronoUnit.YEARS : ChronoUnit.MONTHS;
+        long buckets = step.between(periodStart, to.minusDays(1)) + 1;
+        if (buckets > MAX_HISTOGRAM_BUCKETS) {
+            throw invalid("unit", "Size", String.format("Range has %d buckets, should have at most %d",
+                    buckets, MAX_HISTOGRAM_BUCKETS));
+        }
+        List<BirthDateBucketDto> histogram = new ArrayList<>((int) buckets);
+        while (periodStart.isBefore(to)) {
+            LocalDate nextStart = periodStart.plus(1, step);
+            // both bounds are exclusive, as in searchByDateRange
+            LocalDate lower = periodStart.minusDays(1).isAfter(from) ? periodStart.minusDays(1) : from;
+            LocalDate upper = nextStart.isBefore(to) ? nextStart : to;
+            String period = unit == BirthDateHistogramUnit.YEAR
+                    ? String.valueOf(periodStart.getYear()) : YearMonth.from(periodStart).toString();
+            histogram.add(new BirthDateBucketDto(period, userDao.countByBirthDayRange(lower, upper)));
+            periodStart = nextStart;
+        }
+        return histogram;
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw invalid("limit", "Range", String.format("Should be between 1 and %d", MAX_PAGE_SIZE));
+        }
+    }
+
+    private static InvalidDataException invalid(String field, String code, String message) {
+        return new InvalidDataException(List.of(new ValidationError(field, code, message)));
+    }
+
+    private static UserNotFoundException userNotFound(String email) {
+        return UserUpdates.userNotFound(email);
     }
 }
@@ -0,0 +1,119 @@
+package ua.hodik.testTask.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fge.jsonpatch.JsonPatch;
+import com.github.fge.jsonpatch.JsonPatchException;
+import ua.hodik.testTask.dao.EmailCanonicalizer;
+import ua.hodik.testTask.dto.UserDto;
+import ua.hodik.testTask.exceptions.UserNotFoundException;
+import ua.hodik.testTask.exceptions.UserNotUpdatedException;
+import ua.hodik.testTask.exceptions.UserVersionMismatchException;
+import ua.hodik.testTask.model.User;
+import ua.hodik.testTask.util.AbstractValidator;
+import ua.hodik.testTask.util.UserMapper;
+import ua.hodik.testTask.util.UserPatch;
+import ua.hodik.testTask.util.ValidationResult;
+
+import java.util.function.UnaryOperator;
+
+// The read-modify-write functions behind update and patch, shared by UserServiceImpl and ReactiveUserService.
+// A replacement only compares versions, so it runs inside the DAO's computeIfPresent. A patch is applied and
+// validated outside it, to a user read without a lock: the DAO's lock is a map bin monitor that stalls other
+// writers in the bin and pins a virtual thread. The write then goes through only if the stored user still
+// has the version the patch was applied to; otherwise ConcurrentUpdate tells the caller to read again.
+class UserUpdates {
+    static final long ANY_VERSION = -1;
+    private static final String IMMUTABLE = "Immutable";
+
+    private final ObjectMapper objectMapper;
+    private final UserMapper userMapper;
+    private final AbstractValidator userValidator;
+    private final EmailCanonicalizer canonicalizer;
+
+    UserUpdates(ObjectMapper objectMapper, UserMapper userMapper, AbstractValidator userValidator,
+                EmailCanonicalizer canonicalizer) {
+        this.objectMapper = objectMapper;
+        this.userMapper = userMapper;
+        this.userValidator = userValidator;
+        this.canonicalizer = canonicalizer;
+    }
+
+    // The user is keyed by its email, so a patch can't change it.
+    User patch(String email, UserPatch patch, User stored, long expectedVersion) {
+        checkVersion(email, stored, expectedVersion);
+        UserDto userDtoToUpdate = patchUser(email, patch, stored);
+        ValidationResult errors = new ValidationResult();
+        userValidator.check(userDtoToUpdate, errors);
+        if (userDtoToUpdate.getEmail() != null && !sameEmail(email, userDtoToUpdate.getEmail())) {
+            errors.reject("email", IMMUTABLE, "Can't be changed by a patch");
+        }
+        errors.throwIfInvalid();
+        return userMapper.convertToUser(userDtoToUpdate);
+    }
+
+    static UnaryOperator<User> writeIfUnchanged(User read, User updated) {
+        return stored -> {
+            if (stored.getVersion() != read.getVersion()) {
+                throw ConcurrentUpdate.INSTANCE;
+            }
+            return updated;
+        };
+    }
+
+    // The replacement must keep the email it is stored under, so GET /users/{email} still finds it.
+    void checkReplacementEmail(String email, UserDto userDto) {
+        if (userDto.getEmail() != null && !sameEmail(email, userDto.getEmail())) {
+            ValidationResult errors = new ValidationResult();
+            errors.reject("email", IMMUTABLE, "Should match the email in the path");
+            errors.throwIfInvalid();
+        }
+    }
+
+    UnaryOperator<User> replace(String email, UserDto userDto, long expectedVersion) {
+        return user -> {
+            checkVersion(email, user, expectedVersion);
+            return userMapper.convertToUser(userDto);
+        };
+    }
+
+    static UserNotFoundException userNotFound(String email) {
+        return new UserNotFoundException(String.format("User with email %s not found", email));
+    }
+
+    private UserDto patchUser(String email, UserPatch patch, User user) {
+        UserDto userDto = userMapper.convertToUserDto(user);
+        try {
+            return patch.isCompiled() ? patch.apply(userDto) : applyPatchToUser(patch.getJsonPatch(), userDto);
+        } catch (JsonPatchException | JsonProcessingException e) {
+            throw new UserNotUpdatedException(String.format("User with email %s not updated", email), e);
+        }
+    }
+
+    private UserDto applyPatchToUser(JsonPatch patch, UserDto targetUser) throws JsonPatchException, JsonProcessingException {
+        JsonNode node = objectMapper.convertValue(targetUser, JsonNode.class);
+        JsonNode patched = patch.apply(node);
+        return objectMapper.treeToValue(patched, UserDto.class);
+    }
+
+    private boolean sameEmail(String email, String other) {
+        return canonicalizer.canonicalize(email).equals(canonicalizer.canonicalize(other));
+    }
+
+    private static void checkVersion(String email, User user, long expectedVersion) {
+        if (expectedVersion != ANY_VERSION && user.getVersion() != expectedVersion) {
+            throw new UserVersionMismatchException(String.format("User with email %s has version %d, not %d",
+                    email, user.getVersion(), expectedVersion));
+        }
+    }
+
+    // Thrown from writeIfUnchanged when another write got in since the read; nothing was written.
+    static final class ConcurrentUpdate extends RuntimeException {
+        static final ConcurrentUpdate INSTANCE = new ConcurrentUpdate();
+
+        private ConcurrentUpdate() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -1,21 +1,18 @@
 package ua.hodik.testTask.util;
 
-import org.springframework.validation.BindingResult;
-import org.springframework.validation.FieldError;
+import org.springframework.validation.Errors;
 import org.springframework.validation.Validator;
 import ua.hodik.testTask.exceptions.InvalidDataException;
 
-import java.util.List;
-
 public interface AbstractValidator extends Validator {
-    default void bindErrors(BindingResult bindingResult) {
-        if (bindingResult.hasErrors()) {
-            StringBuilder errorMsg = new StringBuilder();
-            List<FieldError> errors = bindingResult.getFieldErrors();
-            for (FieldError error : errors) {
-                errorMsg.append(error.getField()).append(" - ").append(error.getDefaultMessage()).append(";");
-            }
-            throw new InvalidDataException(errorMsg.toString());
+    // Same checks as validate, but the errors go into result instead of being thrown.
+    void check(Object target, ValidationResult result);
+
+    default void bindErrors(Errors errors) {
+        if (errors.hasErrors()) {
+            ValidationResult result = new ValidationResult();
+            result.addAll(errors);
+            throw new InvalidDataException(result.getErrors());
         }
     }
 }
@@ -2,15 +2,15 @@ package ua.hodik.testTask.util;
 
 import org.jetbrains.annotations.NotNull;
 import org.springframework.stereotype.Component;
-import org.springframework.validation.BindingResult;
 import org.springframework.validation.Errors;
 import org.springframework.validation.Validator;
 import ua.hodik.testTask.dto.DateFormDto;
 
-import java.time.LocalDate;
-
 @Component
 public class DateValidator implements AbstractValidator {
+    private static final String DATE_RANGE = "DateRange";
+    private static final String FROM_AFTER_TO = "'From' date should be before 'to' date";
+
     @Override
     public boolean supports(Class<?> clazz) {
         return this.getClass().equals(clazz);
@@ -18,13 +18,21 @@ public class DateValidator implements AbstractValidator {
 
     @Override
     public void validate(@NotNull Object target, Errors errors) {
-        DateFormDto dateFormDto = (DateFormDto) target;
-        LocalDate from = dateFormDto.getFrom();
-        LocalDate to = dateFormDto.getTo();
-        if (from.isAfter(to) || from.isEqual(to)) {
-            errors.rejectValue("from", "", "'From' date should be before 'to' date");
+        if (!isOrdered((DateFormDto) target)) {
+            errors.rejectValue("from", DATE_RANGE, FROM_AFTER_TO);
+        }
+        bindErrors(errors);
+
+    }
+
+    @Override
+    public void check(Object target, ValidationResult result) {
+        if (!isOrdered((DateFormDto) target)) {
+            result.reject("from", DATE_RANGE, FROM_AFTER_TO);
         }
-        bindErrors((BindingResult) errors);
+    }
 
+    private static boolean isOrdered(DateFormDto dateFormDto) {
+        return dateFormDto.getFrom().isBefore(dateFormDto.getTo());
     }
 }
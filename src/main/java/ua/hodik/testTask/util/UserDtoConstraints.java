@@ -0,0 +1,82 @@
+package ua.hodik.testTask.util;
+
+import ua.hodik.testTask.dto.UserDto;
+
+// The Bean Validation constraints of UserDto (@NotBlank, @Email, @NotNull, @Past and @Size) checked with plain code.
+// hold() only answers true when the annotations would pass too; false means "ask Bean Validation",
+// not "invalid". Keep it in step with the annotations on UserDto.
+final class UserDtoConstraints {
+    private static final int MAX_LOCAL_PART_LENGTH = 64;
+    private static final int MAX_DOMAIN_LENGTH = 255;
+    private static final int MAX_LABEL_LENGTH = 63;
+
+    private UserDtoConstraints() {
+    }
+
+    static boolean hold(UserDto userDto, long todayEpochDay) {
+        return isNotBlank(userDto.getEmail()) && isPlainEmail(userDto.getEmail())
+                && isNotBlank(userDto.getFirstName()) && fits(userDto.getFirstName(), UserDto.MAX_NAME_LENGTH)
+                && isNotBlank(userDto.getLastName()) && fits(userDto.getLastName(), UserDto.MAX_NAME_LENGTH)
+                && fits(userDto.getAddress(), UserDto.MAX_ADDRESS_LENGTH)
+                && fits(userDto.getPhoneNumber(), UserDto.MAX_PHONE_NUMBER_LENGTH)
+                && userDto.getBirthDate() != null && userDto.getBirthDate().toEpochDay() < todayEpochDay;
+    }
+
+    // @Size counts chars and lets null through.
+    private static boolean fits(String value, int maxLength) {
+        return value == null || value.length() <= maxLength;
+    }
+
+    // @NotBlank trims chars up to ' ', as String.trim() does.
+    private static boolean isNotBlank(String value) {
+        if (value == null) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // A strict subset of @Email: dot-separated runs of ASCII atext before a single @, and dot-separated
+    // letter, digit and inner hyphen labels after it. Quoted local parts, IP literals and non-ASCII go
+    // to Bean Validation.
+    static boolean isPlainEmail(String email) {
+        int at = email.indexOf('@');
+        int domainLength = email.length() - at - 1;
+        if (at <= 0 || at > MAX_LOCAL_PART_LENGTH || domainLength <= 0 || domainLength > MAX_DOMAIN_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < at; i++) {
+            char c = email.charAt(i);
+            if (c == '.' ? i == 0 || i == at - 1 || email.charAt(i - 1) == '.' : !isAtext(c)) {
+                return false;
+            }
+        }
+        int labelStart = at + 1;
+        for (int i = labelStart; i <= email.length(); i++) {
+            char c = i == email.length() ? '.' : email.charAt(i);
+            if (c == '.') {
+                int labelLength = i - labelStart;
+                if (labelLength == 0 || labelLength > MAX_LABEL_LENGTH
+                        || email.charAt(labelStart) == '-' || email.charAt(i - 1) == '-') {
+                    return false;
+                }
+                labelStart = i + 1;
+            } else if (!isLetterOrDigit(c) && c != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAtext(char c) {
+        return isLetterOrDigit(c) || c < 0x80 && "!#$%&'*+/=?^_`{|}~-".indexOf(c) >= 0;
+    }
+
+    private static boolean isLetterOrDigit(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9';
+    }
+}
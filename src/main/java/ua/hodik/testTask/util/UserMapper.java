@@ -1,23 +1,37 @@
 package ua.hodik.testTask.util;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Component;
 import ua.hodik.testTask.dto.UserDto;
 import ua.hodik.testTask.model.User;
 
+// Copies fields directly: no reflection or name matching per call,
+// and a field added to one side but not the other shows up here instead of being silently dropped.
 @Component
 public class UserMapper {
-    private final ModelMapper modelMapper;
-
-    public UserMapper(ModelMapper modelMapper) {
-        this.modelMapper = modelMapper;
-    }
 
     public User convertToUser(UserDto userDTO) {
-        return modelMapper.map(userDTO, User.class);
+        User user = new User();
+        user.setId(userDTO.getId());
+        user.setVersion(userDTO.getVersion());
+        user.setEmail(userDTO.getEmail());
+        user.setFirstName(userDTO.getFirstName());
+        user.setLastName(userDTO.getLastName());
+        user.setBirthDate(userDTO.getBirthDate());
+        user.setAddress(userDTO.getAddress());
+        user.setPhoneNumber(userDTO.getPhoneNumber());
+        return user;
     }
 
     public UserDto convertToUserDto(User user) {
-        return modelMapper.map(user, UserDto.class);
+        UserDto userDto = new UserDto();
+        userDto.setId(user.getId());
+        userDto.setVersion(user.getVersion());
+        userDto.setEmail(user.getEmail());
+        userDto.setFirstName(user.getFirstName());
+        userDto.setLastName(user.getLastName());
+        userDto.setBirthDate(user.getBirthDate());
+        userDto.setAddress(user.getAddress());
+        userDto.setPhoneNumber(user.getPhoneNumber());
+        return userDto;
     }
 }
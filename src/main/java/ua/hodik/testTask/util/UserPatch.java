@@ -0,0 +1,176 @@
+package ua.hodik.testTask.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.github.fge.jsonpatch.JsonPatch;
+import com.github.fge.jsonpatch.JsonPatchException;
+import ua.hodik.testTask.dto.UserDto;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+// A JSON Patch for a UserDto. add/replace/remove/test on the top-level UserDto fields, with values of
+// the type Jackson would bind without coercion, are compiled into setter calls on the DTO.
+// Anything else (move, copy, other paths, coerced values) is kept as a JsonPatch for the generic tree path,
+// which also produces the errors for invalid patches.
+@JsonDeserialize(using = UserPatch.Deserializer.class)
+public final class UserPatch {
+    private static final DateTimeFormatter BIRTH_DATE_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+    private static final Object UNSUPPORTED = new Object();
+
+    private final List<Operation> operations;
+    private final JsonPatch jsonPatch;
+
+    private UserPatch(List<Operation> operations, JsonPatch jsonPatch) {
+        this.operations = operations;
+        this.jsonPatch = jsonPatch;
+    }
+
+    public static UserPatch generic(JsonPatch jsonPatch) {
+        return new UserPatch(null, jsonPatch);
+    }
+
+    public static UserPatch compile(JsonNode patch) throws IOException {
+        List<Operation> operations = compileOperations(patch);
+        return operations != null ? new UserPatch(operations, null) : generic(JsonPatch.fromJson(patch));
+    }
+
+    public boolean isCompiled() {
+        return operations != null;
+    }
+
+    // Only set when the patch is not compiled.
+    public JsonPatch getJsonPatch() {
+        return jsonPatch;
+    }
+
+    public UserDto apply(UserDto target) throws JsonPatchException {
+        for (Operation operation : operations) {
+            operation.apply(target);
+        }
+        return target;
+    }
+
+    private static List<Operation> compileOperations(JsonNode patch) {
+        if (!patch.isArray()) {
+            return null;
+        }
+        List<Operation> operations = new ArrayList<>(patch.size());
+        for (JsonNode node : patch) {
+            JsonNode op = node.get("op");
+            JsonNode path = node.get("path");
+            if (op == null || !op.isTextual() || path == null || !path.isTextual()) {
+                return null;
+            }
+            Field field = Field.of(path.textValue());
+            if (field == null) {
+                return null;
+            }
+            JsonNode valueNode = node.get("value");
+            Object value = valueNode == null ? UNSUPPORTED : field.parse(valueNode);
+            switch (op.textValue()) {
+                case "add", "replace" -> {
+                    if (value == UNSUPPORTED) {
+                        return null;
+                    }
+                    operations.add(target -> field.setter.accept(target, value));
+                }
+                case "remove" -> operations.add(target -> field.setter.accept(target, field.removed));
+                case "test" -> {
+                    if (value == UNSUPPORTED) {
+                        return null;
+                    }
+                    operations.add(target -> {
+                        if (!Objects.equals(field.getter.apply(target), value)) {
+                            throw new JsonPatchException(String.format("value differs from expectations at %s", field.path));
+                        }
+                    });
+                }
+                default -> {
+                    return null;
+                }
+            }
+        }
+        return operations;
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        void apply(UserDto target) throws JsonPatchException;
+    }
+
+    private enum Field {
+        ID("/id", UserDto::getId, (user, value) -> user.setId((Long) value), 0L) {
+            @Override
+            Object parse(JsonNode value) {
+                return value.canConvertToLong() && value.isIntegralNumber() ? value.longValue() : UNSUPPORTED;
+            }
+        },
+        EMAIL("/email", UserDto::getEmail, (user, value) -> user.setEmail((String) value), null),
+        FIRST_NAME("/firstName", UserDto::getFirstName, (user, value) -> user.setFirstName((String) value), null),
+        LAST_NAME("/lastName", UserDto::getLastName, (user, value) -> user.setLastName((String) value), null),
+        BIRTH_DATE("/birthDate", UserDto::getBirthDate, (user, value) -> user.setBirthDate((LocalDate) value), null) {
+            @Override
+            Object parse(JsonNode value) {
+                if (value.isNull()) {
+                    return null;
+                }
+                try {
+                    return value.isTextual() ? LocalDate.parse(value.textValue(), BIRTH_DATE_FORMAT) : UNSUPPORTED;
+                } catch (DateTimeParseException e) {
+                    return UNSUPPORTED;
+                }
+            }
+        },
+        ADDRESS("/address", UserDto::getAddress, (user, value) -> user.setAddress((String) value), null),
+        PHONE_NUMBER("/phoneNumber", UserDto::getPhoneNumber, (user, value) -> user.setPhoneNumber((String) value), null);
+
+        private final String path;
+        private final Function<UserDto, Object> getter;
+        private final BiConsumer<UserDto, Object> setter;
+        // what the field binds to once its property is gone from the JSON
+        private final Object removed;
+
+        Field(String path, Function<UserDto, Object> getter, BiConsumer<UserDto, Object> setter, Object removed) {
+            this.path = path;
+            this.getter = getter;
+            this.setter = setter;
+            this.removed = removed;
+        }
+
+        private static final Field[] FIELDS = values();
+
+        static Field of(String path) {
+            for (Field field : FIELDS) {
+                if (field.path.equals(path)) {
+                    return field;
+                }
+            }
+            return null;
+        }
+
+        Object parse(JsonNode value) {
+            if (value.isNull()) {
+                return null;
+            }
+            return value.isTextual() ? value.textValue() : UNSUPPORTED;
+        }
+    }
+
+    public static final class Deserializer extends JsonDeserializer<UserPatch> {
+        @Override
+        public UserPatch deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            return compile(context.readTree(parser));
+        }
+    }
+}
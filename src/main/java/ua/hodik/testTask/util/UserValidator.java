@@ -4,34 +4,94 @@ package ua.hodik.testTask.util;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.validation.BeanPropertyBindingResult;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.Errors;
 import org.springframework.validation.Validator;
 import ua.hodik.testTask.dto.UserDto;
 
+import java.time.Clock;
 import java.time.LocalDate;
+import java.time.ZoneId;
 
 @Component("userValidator")
 public class UserValidator implements AbstractValidator {
+    private static final String MIN_AGE = "MinAge";
+    private static final String TOO_YOUNG = "You are too young!!!";
+
     @Value("${minAge}")
     private int minAge;
 
     @Autowired
     private Validator validator;
 
+    private Clock clock = Clock.systemDefaultZone();
+    // replaced by the first call after midnight
+    private volatile AgeCutoff ageCutoff;
+
     @Override
     public boolean supports(Class<?> clazz) {
         return this.getClass().equals(clazz);
     }
 
+    // Bean Validation only runs when UserDtoConstraints can't vouch for the DTO, so every message
+    // it reports still comes from the annotations.
     @Override
     public void validate(Object target, Errors errors) {
-        validator.validate(target, errors);
         UserDto userDto = (UserDto) target;
+        AgeCutoff cutoff = ageCutoff();
+        if (!passesFastPath(userDto, cutoff)) {
+            validator.validate(target, errors);
+        }
+        if (isTooYoung(userDto, cutoff)) {
+            errors.rejectValue("birthDate", MIN_AGE, TOO_YOUNG);
+        }
+        bindErrors(errors);
+    }
+
+    // A DTO that passes the fast path allocates nothing here.
+    @Override
+    public void check(Object target, ValidationResult result) {
+        UserDto userDto = (UserDto) target;
+        AgeCutoff cutoff = ageCutoff();
+        if (!passesFastPath(userDto, cutoff)) {
+            BindingResult errors = new BeanPropertyBindingResult(target, "userDto");
+            validator.validate(target, errors);
+            result.addAll(errors);
+        }
+        if (isTooYoung(userDto, cutoff)) {
+            result.reject("birthDate", MIN_AGE, TOO_YOUNG);
+        }
+    }
+
+    private static boolean passesFastPath(UserDto userDto, AgeCutoff cutoff) {
+        return userDto.getClass() == UserDto.class && UserDtoConstraints.hold(userDto, cutoff.today());
+    }
+
+    private static boolean isTooYoung(UserDto userDto, AgeCutoff cutoff) {
         LocalDate birthDate = userDto.getBirthDate();
-        if (birthDate.plusYears(minAge).isAfter(LocalDate.now())) {
-            errors.rejectValue("birthDate", "", "You are too young!!!");
+        return birthDate != null && birthDate.toEpochDay() > cutoff.latestBirthDay();
+    }
+
+    private AgeCutoff ageCutoff() {
+        AgeCutoff cutoff = ageCutoff;
+        if (cutoff == null || clock.millis() >= cutoff.validUntil()) {
+            cutoff = AgeCutoff.of(LocalDate.now(clock), clock.getZone(), minAge);
+            ageCutoff = cutoff;
+        }
+        return cutoff;
+    }
+
+    // latestBirthDay is the last epoch day whose birthDate.plusYears(minAge) is not after today. It is found
+    // by stepping from today.minusYears(minAge), since a Feb 29 birthday comes of age on Feb 28.
+    private record AgeCutoff(long today, long latestBirthDay, long validUntil) {
+        static AgeCutoff of(LocalDate today, ZoneId zone, int minAge) {
+            LocalDate latest = today.minusYears(minAge);
+            while (!latest.plusDays(1).plusYears(minAge).isAfter(today)) {
+                latest = latest.plusDays(1);
+            }
+            long nextMidnight = today.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            return new AgeCutoff(today.toEpochDay(), latest.toEpochDay(), nextMidnight);
         }
-        bindErrors((BindingResult) errors);
     }
 }
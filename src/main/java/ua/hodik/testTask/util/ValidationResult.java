@@ -0,0 +1,50 @@
+package ua.hodik.testTask.util;
+
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+import ua.hodik.testTask.exceptions.InvalidDataException;
+import ua.hodik.testTask.exceptions.ValidationError;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Errors collected by AbstractValidator.check. The list is only created by the first error, so checking
+// a valid object allocates nothing, and clear() readies the same instance for the next object.
+public final class ValidationResult {
+    private List<ValidationError> errors;
+
+    public void reject(String field, String code, String message) {
+        if (errors == null) {
+            errors = new ArrayList<>(4);
+        }
+        errors.add(new ValidationError(field, code, message));
+    }
+
+    // Takes over the field errors of a Spring Errors, such as the ones Bean Validation reports.
+    public void addAll(Errors bindingErrors) {
+        for (FieldError error : bindingErrors.getFieldErrors()) {
+            reject(error.getField(), error.getCode(), error.getDefaultMessage());
+        }
+    }
+
+    public boolean hasErrors() {
+        return errors != null && !errors.isEmpty();
+    }
+
+    public List<ValidationError> getErrors() {
+        return errors == null ? List.of() : Collections.unmodifiableList(errors);
+    }
+
+    public void clear() {
+        if (errors != null) {
+            errors.clear();
+        }
+    }
+
+    public void throwIfInvalid() {
+        if (hasErrors()) {
+            throw new InvalidDataException(List.copyOf(errors));
+        }
+    }
+}
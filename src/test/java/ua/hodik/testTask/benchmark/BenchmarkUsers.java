@@ -0,0 +1,28 @@
+package ua.hodik.testTask.benchmark;
+
+import ua.hodik.testTask.model.User;
+
+import java.time.LocalDate;
+
+final class BenchmarkUsers {
+    static final LocalDate FIRST_BIRTH_DATE = LocalDate.of(1950, 1, 1);
+    static final int BIRTH_DATE_SPAN_DAYS = 50 * 365;
+
+    private BenchmarkUsers() {
+    }
+
+    static String email(int i) {
+        return "user" + i + "@gmail.com";
+    }
+
+    static User user(int i) {
+        User user = new User();
+        user.setEmail(email(i));
+        user.setFirstName("John");
+        user.setLastName("Obama");
+        user.setBirthDate(FIRST_BIRTH_DATE.plusDays(Math.floorMod(i * 31L, BIRTH_DATE_SPAN_DAYS)));
+        user.setAddress("Kyiv, 25");
+        user.setPhoneNumber("+1234567890");
+        return user;
+    }
+}
@@ -0,0 +1,42 @@
+package ua.hodik.testTask.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ua.hodik.testTask.dao.UserDaoImpl;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// How many users fall in a ten-year birth date range: counters vs. searching and taking the size.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BirthDateCountBenchmark {
+    private static final LocalDate FROM = BenchmarkUsers.FIRST_BIRTH_DATE.plusYears(10);
+    private static final LocalDate TO = FROM.plusYears(10);
+
+    @Param({"10000", "100000"})
+    private int storeSize;
+
+    private UserDaoImpl userDao;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userDao = new UserDaoImpl();
+        for (int i = 0; i < storeSize; i++) {
+            userDao.create(BenchmarkUsers.user(i));
+        }
+    }
+
+    @Benchmark
+    public long search() {
+        return userDao.searchByBirthDayRange(FROM, TO).size();
+    }
+
+    @Benchmark
+    public long count() {
+        return userDao.countByBirthDayRange(FROM, TO);
+    }
+}
@@ -0,0 +1,69 @@
+package ua.hodik.testTask.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ua.hodik.testTask.dao.UserDaoImpl;
+import ua.hodik.testTask.model.User;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class EmailLookupBenchmark {
+    private static final int LOOKUP_KEYS = 1 << 12;
+
+    @Param({"10000", "1000000"})
+    private int storeSize;
+
+    private UserDaoImpl userDao;
+    // The pre-canonicalization keying: the raw email string.
+    private ConcurrentMap<String, User> rawMap;
+    private char[][] canonicalEmails;
+    private char[][] mixedCaseEmails;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userDao = new UserDaoImpl();
+        rawMap = new ConcurrentHashMap<>();
+        for (int i = 0; i < storeSize; i++) {
+            User user = BenchmarkUsers.user(i);
+            userDao.create(user);
+            rawMap.put(user.getEmail(), user);
+        }
+        canonicalEmails = new char[LOOKUP_KEYS][];
+        mixedCaseEmails = new char[LOOKUP_KEYS][];
+        for (int i = 0; i < LOOKUP_KEYS; i++) {
+            String email = BenchmarkUsers.email((int) ((long) i * storeSize / LOOKUP_KEYS));
+            canonicalEmails[i] = email.toCharArray();
+            mixedCaseEmails[i] = ("User" + email.substring(4, email.indexOf('@')) + "@GMail.com").toCharArray();
+        }
+    }
+
+    // Every request brings a new email string, so each lookup starts from a fresh instance with a cold hash.
+    private String nextEmail(char[][] emails) {
+        next = (next + 1) & (LOOKUP_KEYS - 1);
+        return new String(emails[next]);
+    }
+
+    @Benchmark
+    public Optional<User> rawStringKey() {
+        return Optional.ofNullable(rawMap.get(nextEmail(canonicalEmails)));
+    }
+
+    @Benchmark
+    public Optional<User> canonicalKey() {
+        return userDao.findByEmail(nextEmail(canonicalEmails));
+    }
+
+    @Benchmark
+    public Optional<User> canonicalKeyMixedCase() {
+        return userDao.findByEmail(nextEmail(mixedCaseEmails));
+    }
+}
@@ -0,0 +1,86 @@
+package ua.hodik.testTask.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import ua.hodik.testTask.controllers.ExceptionHandlingController;
+import ua.hodik.testTask.controllers.UserController;
+import ua.hodik.testTask.dao.EmailCanonicalizer;
+import ua.hodik.testTask.dao.UserDaoImpl;
+import ua.hodik.testTask.dto.UserDto;
+import ua.hodik.testTask.service.UserImportService;
+import ua.hodik.testTask.service.UserJsonCache;
+import ua.hodik.testTask.service.UserListSnapshot;
+import ua.hodik.testTask.service.UserServiceImpl;
+import ua.hodik.testTask.util.DateValidator;
+import ua.hodik.testTask.util.UserMapper;
+import ua.hodik.testTask.util.UserValidator;
+
+import java.util.concurrent.TimeUnit;
+
+// Requests that end in a domain error, through the DispatcherServlet and ExceptionHandlingController.
+// SampleTime reports the percentiles, p0.99 included.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ErrorResponseBenchmark {
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final LocalValidatorFactoryBean validator = new LocalValidatorFactoryBean();
+    private MockMvc mvc;
+    private byte[] existingUser;
+    private byte[] invalidUser;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        validator.afterPropertiesSet();
+        UserValidator userValidator = new UserValidator();
+        ReflectionTestUtils.setField(userValidator, "minAge", 18);
+        ReflectionTestUtils.setField(userValidator, "validator", validator);
+        UserMapper userMapper = new UserMapper();
+        UserDaoImpl userDao = new UserDaoImpl();
+        userDao.create(BenchmarkUsers.user(1));
+        EmailCanonicalizer canonicalizer = new EmailCanonicalizer(EmailCanonicalizer.LocalPartPolicy.LOWERCASE);
+        UserServiceImpl userService = new UserServiceImpl(userDao, objectMapper, userMapper, userValidator, canonicalizer,
+                new UserJsonCache(objectMapper, userMapper, canonicalizer, 1000, 0),
+                new UserListSnapshot(userDao, userMapper, objectMapper));
+        UserController controller = new UserController(userValidator, new DateValidator(), userService,
+                new UserImportService(userDao, objectMapper, userMapper, userValidator), objectMapper);
+        mvc = MockMvcBuilders.standaloneSetup(controller).setControllerAdvice(new ExceptionHandlingController()).build();
+        existingUser = objectMapper.writeValueAsBytes(userMapper.convertToUserDto(BenchmarkUsers.user(1)));
+        UserDto invalid = userMapper.convertToUserDto(BenchmarkUsers.user(2));
+        invalid.setFirstName(" ");
+        invalidUser = objectMapper.writeValueAsBytes(invalid);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        validator.close();
+    }
+
+    @Benchmark
+    public int notFound() throws Exception {
+        return mvc.perform(MockMvcRequestBuilders.get("/users/missing@gmail.com")).andReturn().getResponse().getStatus();
+    }
+
+    @Benchmark
+    public int alreadyExists() throws Exception {
+        return mvc.perform(MockMvcRequestBuilders.post("/users").contentType(MediaType.APPLICATION_JSON).content(existingUser))
+                .andReturn().getResponse().getStatus();
+    }
+
+    @Benchmark
+    public int invalidData() throws Exception {
+        return mvc.perform(MockMvcRequestBuilders.put("/users/" + BenchmarkUsers.email(2))
+                        .contentType(MediaType.APPLICATION_JSON).content(invalidUser))
+                .andReturn().getResponse().getStatus();
+    }
+}
@@ -0,0 +1,55 @@
+package ua.hodik.testTask.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ua.hodik.testTask.dao.CowUserDao;
+import ua.hodik.testTask.dao.UserDao;
+import ua.hodik.testTask.dao.UserDaoImpl;
+import ua.hodik.testTask.model.User;
+
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// 95% reads (point lookups and a one-week birth date range), 5% updates; run with -t to add threads.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ReadHeavyUserDaoBenchmark {
+
+    @Param({"100000"})
+    private int storeSize;
+
+    @Param({"heap", "cow"})
+    private String engine;
+
+    private UserDao userDao;
+    private User[] users;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userDao = engine.equals("cow") ? new CowUserDao() : new UserDaoImpl();
+        users = new User[storeSize];
+        for (int i = 0; i < storeSize; i++) {
+            users[i] = BenchmarkUsers.user(i);
+            userDao.create(users[i]);
+        }
+    }
+
+    @Benchmark
+    public Object mixed() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int index = random.nextInt(storeSize);
+        int op = random.nextInt(100);
+        if (op < 5) {
+            return userDao.update(users[index].getEmail(), BenchmarkUsers.user(index));
+        }
+        if (op < 10) {
+            LocalDate from = BenchmarkUsers.FIRST_BIRTH_DATE.plusDays(random.nextInt(BenchmarkUsers.BIRTH_DATE_SPAN_DAYS));
+            return userDao.searchByBirthDayRange(from, from.plusDays(7));
+        }
+        return userDao.findByEmail(users[index].getEmail());
+    }
+}
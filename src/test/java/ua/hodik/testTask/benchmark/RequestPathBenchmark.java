@@ -0,0 +1,183 @@
+package ua.hodik.testTask.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import ua.hodik.testTask.dao.EmailCanonicalizer;
+import ua.hodik.testTask.dao.UserDaoImpl;
+import ua.hodik.testTask.dao.UserPage;
+import ua.hodik.testTask.dto.DateFormDto;
+import ua.hodik.testTask.dto.UserDto;
+import ua.hodik.testTask.model.User;
+import ua.hodik.testTask.service.UserJsonCache;
+import ua.hodik.testTask.service.UserListSnapshot;
+import ua.hodik.testTask.service.UserServiceImpl;
+import ua.hodik.testTask.util.DateValidator;
+import ua.hodik.testTask.util.UserMapper;
+import ua.hodik.testTask.util.UserPatch;
+import ua.hodik.testTask.util.UserValidator;
+import ua.hodik.testTask.util.ValidationResult;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// One step of the request path per benchmark, each on its own, so a regression shows up against the step
+// that caused it: the store, the mapper, the validators, a patch through UserServiceImpl and serializing
+// a page of users. The main method runs the suite once per thread count and writes JSON results that
+// can be kept and diffed between commits:
+//
+// mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=ua.hodik.testTask.benchmark.RequestPathBenchmark \
+//     -Djmh.args="1,4 target/jmh"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestPathBenchmark {
+    private static final int PAGE_SIZE = 100;
+    private static final String PATCH = """
+            [{"op":"replace","path":"/firstName","value":"Barack"}]""";
+
+    @Param({"1000", "100000"})
+    private int storeSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final LocalValidatorFactoryBean validator = new LocalValidatorFactoryBean();
+    private final UserMapper userMapper = new UserMapper();
+    private final DateValidator dateValidator = new DateValidator();
+    private UserValidator userValidator;
+    private UserDaoImpl userDao;
+    private UserServiceImpl userService;
+    private User[] users;
+    private UserDto[] userDtos;
+    private List<UserDto> page;
+    private DateFormDto dateForm;
+    private UserPatch patch;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        validator.afterPropertiesSet();
+        userValidator = new UserValidator();
+        ReflectionTestUtils.setField(userValidator, "minAge", 18);
+        ReflectionTestUtils.setField(userValidator, "validator", validator);
+        userDao = new UserDaoImpl();
+        users = new User[storeSize];
+        userDtos = new UserDto[storeSize];
+        for (int i = 0; i < storeSize; i++) {
+            users[i] = BenchmarkUsers.user(i);
+            userDtos[i] = userMapper.convertToUserDto(users[i]);
+            userDao.create(users[i]);
+        }
+        EmailCanonicalizer canonicalizer = new EmailCanonicalizer(EmailCanonicalizer.LocalPartPolicy.LOWERCASE);
+        userService = new UserServiceImpl(userDao, objectMapper, userMapper, userValidator, canonicalizer,
+                new UserJsonCache(objectMapper, userMapper, canonicalizer, 1000, 0),
+                new UserListSnapshot(userDao, userMapper, objectMapper));
+        page = Arrays.asList(userDtos).subList(0, Math.min(PAGE_SIZE, storeSize));
+        dateForm = new DateFormDto(BenchmarkUsers.FIRST_BIRTH_DATE, BenchmarkUsers.FIRST_BIRTH_DATE.plusYears(10));
+        patch = UserPatch.compile(objectMapper.readTree(PATCH));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        validator.close();
+    }
+
+    @Benchmark
+    public Optional<User> daoFindByEmail() {
+        return userDao.findByEmail(users[randomIndex()].getEmail());
+    }
+
+    @Benchmark
+    public Optional<User> daoUpdate() {
+        User user = users[randomIndex()];
+        return userDao.updateIfPresent(user.getEmail(), user);
+    }
+
+    @Benchmark
+    public UserPage daoFindPage() {
+        return userDao.findPage(users[randomIndex()].getEmail(), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public UserDto mapToDto() {
+        return userMapper.convertToUserDto(users[randomIndex()]);
+    }
+
+    @Benchmark
+    public User mapToUser() {
+        return userMapper.convertToUser(userDtos[randomIndex()]);
+    }
+
+    @Benchmark
+    public ValidationResult validateUser() {
+        ValidationResult result = new ValidationResult();
+        userValidator.check(userDtos[randomIndex()], result);
+        return result;
+    }
+
+    @Benchmark
+    public ValidationResult validateDateRange() {
+        ValidationResult result = new ValidationResult();
+        dateValidator.check(dateForm, result);
+        return result;
+    }
+
+    // The stored user is read, patched and validated, then written back if no other write got in meanwhile.
+    @Benchmark
+    public UserDto patchUser() {
+        return userService.patchUpdate(users[randomIndex()].getEmail(), patch);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    private int randomIndex() {
+        return ThreadLocalRandom.current().nextInt(storeSize);
+    }
+
+    // Arguments: thread counts separated by commas (by default 1 up to the number of available cores)
+    // and the directory for the results, one request-path-<threads>t.json per thread count.
+    public static void main(String[] args) throws RunnerException {
+        int[] threadCounts = args.length > 0
+                ? Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray()
+                : defaultThreadCounts();
+        File resultDirectory = new File(args.length > 1 ? args[1] : "target/jmh");
+        if (!resultDirectory.isDirectory() && !resultDirectory.mkdirs()) {
+            throw new IllegalStateException(String.format("Can't create %s", resultDirectory));
+        }
+        for (int threads : threadCounts) {
+            Options options = new OptionsBuilder()
+                    .include(RequestPathBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(resultDirectory, String.format("request-path-%dt.json", threads)).getPath())
+                    .build();
+            new Runner(options).run();
+        }
+    }
+
+    private static int[] defaultThreadCounts() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int[] counts = new int[32 - Integer.numberOfLeadingZeros(cores)];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = 1 << i;
+        }
+        return counts;
+    }
+}
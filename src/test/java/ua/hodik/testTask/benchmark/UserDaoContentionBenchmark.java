@@ -0,0 +1,76 @@
+package ua.hodik.testTask.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ua.hodik.testTask.dao.UserDaoImpl;
+import ua.hodik.testTask.model.User;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserDaoContentionBenchmark {
+
+    @Param({"100000"})
+    private int storeSize;
+
+    private UserDaoImpl userDao;
+    private User[] users;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userDao = new UserDaoImpl();
+        users = new User[storeSize];
+        for (int i = 0; i < storeSize; i++) {
+            users[i] = BenchmarkUsers.user(i);
+            userDao.create(users[i]);
+        }
+    }
+
+    @Benchmark
+    public Optional<User> read() {
+        return userDao.findByEmail(users[ThreadLocalRandom.current().nextInt(storeSize)].getEmail());
+    }
+
+    @Benchmark
+    public User write() {
+        User user = users[ThreadLocalRandom.current().nextInt(storeSize)];
+        return userDao.update(user.getEmail(), user);
+    }
+
+    @Benchmark
+    public Object mixed() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        User user = users[random.nextInt(storeSize)];
+        int op = random.nextInt(10);
+        if (op == 0) {
+            userDao.delete(user.getEmail());
+            return userDao.create(user);
+        }
+        if (op == 1) {
+            return userDao.update(user.getEmail(), user);
+        }
+        return userDao.findByEmail(user.getEmail());
+    }
+
+    // Runs every benchmark from 1 thread up to the number of available cores.
+    public static void main(String[] args) throws RunnerException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            Options options = new OptionsBuilder()
+                    .include(UserDaoContentionBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package ua.hodik.testTask.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ua.hodik.testTask.dao.MappedUserDao;
+import ua.hodik.testTask.dao.UserDao;
+import ua.hodik.testTask.dao.UserDaoImpl;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+// Heap retained by each engine and the full GC pause it causes; the GC is the measured operation.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx16g", "-XX:+UseG1GC"})
+public class UserDaoFootprintBenchmark {
+    private static final long MB = 1024 * 1024;
+
+    @Param({"10000000"})
+    private int storeSize;
+
+    @Param({"heap", "mapped"})
+    private String engine;
+
+    private UserDao userDao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        userDao = "mapped".equals(engine)
+                ? new MappedUserDao(Files.createTempDirectory("footprint-benchmark"))
+                : new UserDaoImpl();
+        for (int i = 0; i < storeSize; i++) {
+            userDao.create(BenchmarkUsers.user(i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (userDao instanceof MappedUserDao mapped) {
+            mapped.close();
+        }
+    }
+
+    @Benchmark
+    public void fullGc(HeapUsage heapUsage) {
+        System.gc();
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        heapUsage.heapUsedMb = heap.getUsed() / MB;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class HeapUsage {
+        public long heapUsedMb;
+    }
+}
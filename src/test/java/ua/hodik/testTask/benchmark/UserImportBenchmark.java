@@ -0,0 +1,112 @@
+package ua.hodik.testTask.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import ua.hodik.testTask.dao.EmailCanonicalizer;
+import ua.hodik.testTask.dao.UserDaoImpl;
+import ua.hodik.testTask.dao.wal.FsyncPolicy;
+import ua.hodik.testTask.dao.wal.WriteAheadLog;
+import ua.hodik.testTask.dto.BulkImportResultDto;
+import ua.hodik.testTask.dto.UserDto;
+import ua.hodik.testTask.service.UserImportService;
+import ua.hodik.testTask.service.UserJsonCache;
+import ua.hodik.testTask.service.UserListSnapshot;
+import ua.hodik.testTask.service.UserServiceImpl;
+import ua.hodik.testTask.util.UserMapper;
+import ua.hodik.testTask.util.UserValidator;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Records per second through the bulk endpoint's service versus one createUser call per record,
+// which is what a client looping over POST /users costs minus HTTP.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@OperationsPerInvocation(UserImportBenchmark.RECORDS)
+@Fork(1)
+public class UserImportBenchmark {
+    static final int RECORDS = 100_000;
+
+    @Param({"ALWAYS", "INTERVAL"})
+    private FsyncPolicy fsyncPolicy;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final LocalValidatorFactoryBean validator = new LocalValidatorFactoryBean();
+    private final UserMapper userMapper = new UserMapper();
+    private UserValidator userValidator;
+    private byte[] ndjson;
+    private String[] lines;
+
+    private Path directory;
+    private WriteAheadLog log;
+    private UserDaoImpl userDao;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws JsonProcessingException {
+        validator.afterPropertiesSet();
+        userValidator = new UserValidator();
+        ReflectionTestUtils.setField(userValidator, "minAge", 18);
+        ReflectionTestUtils.setField(userValidator, "validator", validator);
+        ObjectWriter writer = objectMapper.writerFor(UserDto.class);
+        lines = new String[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            lines[i] = writer.writeValueAsString(userMapper.convertToUserDto(BenchmarkUsers.user(i)));
+        }
+        ndjson = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() throws IOException {
+        directory = Files.createTempDirectory("import-benchmark");
+        log = new WriteAheadLog(directory, fsyncPolicy, 100);
+        userDao = new UserDaoImpl(log);
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownInvocation() throws IOException {
+        log.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+        validator.close();
+    }
+
+    @Benchmark
+    public BulkImportResultDto bulk() {
+        UserImportService importService = new UserImportService(userDao, objectMapper, userMapper, userValidator);
+        return importService.importUsers(new ByteArrayInputStream(ndjson));
+    }
+
+    @Benchmark
+    public int perRecord() throws JsonProcessingException {
+        EmailCanonicalizer canonicalizer = new EmailCanonicalizer(EmailCanonicalizer.LocalPartPolicy.LOWERCASE);
+        UserServiceImpl userService = new UserServiceImpl(userDao, objectMapper, userMapper, userValidator, canonicalizer,
+                new UserJsonCache(objectMapper, userMapper, canonicalizer, 0, 0),
+                new UserListSnapshot(userDao, userMapper, objectMapper));
+        for (String line : lines) {
+            UserDto userDto = objectMapper.readValue(line, UserDto.class);
+            userValidator.validate(userDto, new BeanPropertyBindingResult(userDto, "userDto"));
+            userService.createUser(userDto);
+        }
+        return lines.length;
+    }
+}
@@ -0,0 +1,57 @@
+package ua.hodik.testTask.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import ua.hodik.testTask.dao.EmailCanonicalizer;
+import ua.hodik.testTask.dto.SerializedUserDto;
+import ua.hodik.testTask.model.User;
+import ua.hodik.testTask.service.UserJsonCache;
+import ua.hodik.testTask.util.UserMapper;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserJsonCacheBenchmark {
+    private static final int HOT_USERS = 1000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final UserMapper userMapper = new UserMapper();
+    private UserJsonCache userJsonCache;
+    private User[] users;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userJsonCache = new UserJsonCache(objectMapper, userMapper,
+                new EmailCanonicalizer(EmailCanonicalizer.LocalPartPolicy.LOWERCASE), HOT_USERS, 0);
+        users = new User[HOT_USERS];
+        for (int i = 0; i < HOT_USERS; i++) {
+            users[i] = BenchmarkUsers.user(i);
+            users[i].setId(i + 1);
+            users[i].setVersion(1);
+        }
+    }
+
+    private User nextUser() {
+        next = next + 1 == HOT_USERS ? 0 : next + 1;
+        return users[next];
+    }
+
+    @Benchmark
+    public SerializedUserDto cached() {
+        return userJsonCache.get(nextUser());
+    }
+
+    // What a read did before: map to a UserDto and serialize it.
+    @Benchmark
+    public byte[] uncached() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(userMapper.convertToUserDto(nextUser()));
+    }
+}
@@ -0,0 +1,51 @@
+package ua.hodik.testTask.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import ua.hodik.testTask.dao.UserDaoImpl;
+import ua.hodik.testTask.dto.UserDto;
+import ua.hodik.testTask.service.UserListSnapshot;
+import ua.hodik.testTask.util.UserMapper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserListSnapshotBenchmark {
+
+    @Param({"100", "10000"})
+    private int storeSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final UserMapper userMapper = new UserMapper();
+    private UserDaoImpl userDao;
+    private UserListSnapshot userListSnapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userDao = new UserDaoImpl();
+        for (int i = 0; i < storeSize; i++) {
+            userDao.create(BenchmarkUsers.user(i));
+        }
+        userListSnapshot = new UserListSnapshot(userDao, userMapper, objectMapper);
+    }
+
+    @Benchmark
+    public byte[] snapshot() {
+        return userListSnapshot.get();
+    }
+
+    // What GET /users did before: copy, map and serialize the whole store on every call.
+    @Benchmark
+    public byte[] rebuildEveryCall() throws JsonProcessingException {
+        List<UserDto> users = userDao.findAll().stream().map(userMapper::convertToUserDto).toList();
+        return objectMapper.writeValueAsBytes(users);
+    }
+}
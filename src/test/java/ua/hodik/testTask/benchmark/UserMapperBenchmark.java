@@ -0,0 +1,51 @@
+package ua.hodik.testTask.benchmark;
+
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import ua.hodik.testTask.dto.UserDto;
+import ua.hodik.testTask.model.User;
+import ua.hodik.testTask.util.UserMapper;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserMapperBenchmark {
+
+    private final UserMapper userMapper = new UserMapper();
+    // The mapper UserMapper used to delegate to.
+    private final ModelMapper modelMapper = new ModelMapper();
+
+    private User user;
+    private UserDto userDto;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        user = BenchmarkUsers.user(42);
+        userDto = userMapper.convertToUserDto(user);
+    }
+
+    @Benchmark
+    public UserDto toDto() {
+        return userMapper.convertToUserDto(user);
+    }
+
+    @Benchmark
+    public UserDto toDtoModelMapper() {
+        return modelMapper.map(user, UserDto.class);
+    }
+
+    @Benchmark
+    public User toUser() {
+        return userMapper.convertToUser(userDto);
+    }
+
+    @Benchmark
+    public User toUserModelMapper() {
+        return modelMapper.map(userDto, User.class);
+    }
+}
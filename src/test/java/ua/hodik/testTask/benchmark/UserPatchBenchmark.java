@@ -0,0 +1,50 @@
+package ua.hodik.testTask.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.fge.jsonpatch.JsonPatch;
+import org.openjdk.jmh.annotations.*;
+import ua.hodik.testTask.dto.UserDto;
+import ua.hodik.testTask.util.UserMapper;
+import ua.hodik.testTask.util.UserPatch;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Both paths start from the parsed request body, as the controller sees it, and end with a patched UserDto.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserPatchBenchmark {
+    private static final String PATCH = """
+            [{"op":"test","path":"/email","value":"user42@gmail.com"},
+             {"op":"replace","path":"/firstName","value":"Barack"},
+             {"op":"replace","path":"/birthDate","value":"04.08.1961"}]""";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final UserMapper userMapper = new UserMapper();
+    private JsonNode patchNode;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        patchNode = objectMapper.readTree(PATCH);
+    }
+
+    @Benchmark
+    public UserDto compiled() throws Exception {
+        UserPatch patch = UserPatch.compile(patchNode);
+        return patch.apply(userMapper.convertToUserDto(BenchmarkUsers.user(42)));
+    }
+
+    // What UserServiceImpl.applyPatchToUser did for every patch before.
+    @Benchmark
+    public UserDto jsonTree() throws Exception {
+        JsonPatch patch = JsonPatch.fromJson(patchNode);
+        JsonNode node = objectMapper.convertValue(userMapper.convertToUserDto(BenchmarkUsers.user(42)), JsonNode.class);
+        return objectMapper.treeToValue(patch.apply(node), UserDto.class);
+    }
+}
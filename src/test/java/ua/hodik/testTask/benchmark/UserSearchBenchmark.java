@@ -0,0 +1,57 @@
+package ua.hodik.testTask.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ua.hodik.testTask.dao.UserDaoImpl;
+import ua.hodik.testTask.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class UserSearchBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    private int storeSize;
+
+    @Param({"30"})
+    private int rangeDays;
+
+    private UserDaoImpl userDao;
+    private List<User> allUsers;
+    private LocalDate from;
+    private LocalDate to;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userDao = new UserDaoImpl();
+        allUsers = new ArrayList<>(storeSize);
+        for (int i = 0; i < storeSize; i++) {
+            User user = BenchmarkUsers.user(i);
+            userDao.create(user);
+            allUsers.add(user);
+        }
+        from = BenchmarkUsers.FIRST_BIRTH_DATE.plusDays(BenchmarkUsers.BIRTH_DATE_SPAN_DAYS / 2);
+        to = from.plusDays(rangeDays);
+    }
+
+    @Benchmark
+    public List<User> indexed() {
+        return userDao.searchByBirthDayRange(from, to);
+    }
+
+    // The pre-index implementation: filter every stored user.
+    @Benchmark
+    public List<User> fullScan() {
+        return allUsers.stream()
+                .filter(user -> user.getBirthDate().isAfter(from) && user.getBirthDate().isBefore(to))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,65 @@
+package ua.hodik.testTask.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ua.hodik.testTask.dao.UserDaoImpl;
+import ua.hodik.testTask.dao.wal.FsyncPolicy;
+import ua.hodik.testTask.dao.wal.WriteAheadLog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Cold start of a persistent store: replaying the whole history versus the newest snapshot plus tail.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class UserStoreRecoveryBenchmark {
+
+    @Param({"1000000", "10000000"})
+    private int storeSize;
+
+    // every user is written this many times, so the log holds storeSize * updatesPerUser records
+    @Param({"3"})
+    private int updatesPerUser;
+
+    @Param({"true", "false"})
+    private boolean snapshot;
+
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("recovery-benchmark");
+        try (WriteAheadLog log = new WriteAheadLog(directory, FsyncPolicy.OS, 0)) {
+            UserDaoImpl userDao = new UserDaoImpl(log);
+            for (int round = 0; round < updatesPerUser; round++) {
+                for (int i = 0; i < storeSize; i++) {
+                    userDao.update(BenchmarkUsers.email(i), BenchmarkUsers.user(i));
+                }
+            }
+            if (snapshot) {
+                userDao.checkpoint();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int coldStart() throws IOException {
+        try (WriteAheadLog log = new WriteAheadLog(directory, FsyncPolicy.OS, 0)) {
+            return new UserDaoImpl(log).findAll().size();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package ua.hodik.testTask.benchmark;
+
+import ua.hodik.testTask.TestTaskApplication;
+import ua.hodik.testTask.dao.UserDaoImpl;
+import ua.hodik.testTask.dao.wal.FsyncPolicy;
+import ua.hodik.testTask.dao.wal.WriteAheadLog;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+// Not JMH: runs the application in a separate JVM, once on Spring MVC and once on WebFlux, with the same
+// users replayed from a write-ahead log and the heap capped, and streams GET /users as NDJSON to many
+// concurrent connections that read each body line by line. Reports throughput, latency percentiles
+// and the server's peak resident memory and thread count, read from /proc, so Linux only.
+//
+// mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=ua.hodik.testTask.benchmark.UserStreamLoadBenchmark \
+//     -Djmh.args="20000 200 1 128m"
+public class UserStreamLoadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int requestsPerConnection = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        String maxHeap = args.length > 3 ? args[3] : "128m";
+        System.out.printf("%d users, %d connections x %d streams, -Xmx%s%n", users, connections, requestsPerConnection, maxHeap);
+        Path walDirectory = Files.createTempDirectory("user-stream-load");
+        try (WriteAheadLog journal = new WriteAheadLog(walDirectory, FsyncPolicy.OS, 100)) {
+            new UserDaoImpl(journal).createAllIfAbsent(IntStream.range(0, users).mapToObj(BenchmarkUsers::user).toList());
+        }
+        for (String mode : List.of("servlet", "reactive")) {
+            run(mode, walDirectory, maxHeap, users, connections, requestsPerConnection);
+        }
+    }
+
+    private static void run(String mode, Path walDirectory, String maxHeap, int users, int connections,
+                            int requestsPerConnection) throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        Path log = Files.createTempFile("user-stream-load-" + mode, ".log");
+        // the test classpath adds TestConfiguration's validators on top of the scanned ones
+        Process server = new ProcessBuilder(ProcessHandle.current().info().command().orElse("java"),
+                "-Xmx" + maxHeap, "-cp", System.getProperty("java.class.path"), TestTaskApplication.class.getName(),
+                "--server.port=" + port, "--spring.main.banner-mode=off", "--logging.level.root=WARN",
+                "--spring.main.allow-bean-definition-overriding=true", "--wal.enabled=true",
+                "--wal.directory=" + walDirectory, "--wal.fsyncPolicy=OS", "--wal.snapshotIntervalMs=3600000",
+                "--userStore.engine=heap", "--spring.main.web-application-type=" + mode)
+                .redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        try {
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            awaitStarted(client, port, server, log);
+            long[] latencies = new long[connections * requestsPerConnection];
+            AtomicInteger failures = new AtomicInteger();
+            AtomicLong peakRssKb = new AtomicLong();
+            AtomicLong peakThreads = new AtomicLong();
+            ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+            sampler.scheduleAtFixedRate(() -> {
+                peakRssKb.accumulateAndGet(status(server, "VmRSS:"), Math::max);
+                peakThreads.accumulateAndGet(status(server, "Threads:"), Math::max);
+            }, 0, 20, TimeUnit.MILLISECONDS);
+            long startRssKb = status(server, "VmRSS:");
+
+            long start = System.nanoTime();
+            List<CompletableFuture<?>> runs = new ArrayList<>(connections);
+            for (int c = 0; c < connections; c++) {
+                runs.add(stream(client, port, c, 0, requestsPerConnection, users, latencies, failures));
+            }
+            CompletableFuture.allOf(runs.toArray(CompletableFuture[]::new)).join();
+            long elapsed = System.nanoTime() - start;
+            sampler.shutdownNow();
+
+            Arrays.sort(latencies);
+            System.out.printf("%-9s %6.1f streams/s, p50 %7.1f ms, p99 %7.1f ms, server RSS %4d -> %4d MB, server threads %4d, failed %d%n",
+                    mode + ":", latencies.length / (elapsed / 1e9), millis(latencies, 0.50), millis(latencies, 0.99),
+                    startRssKb >> 10, peakRssKb.get() >> 10, peakThreads.get(), failures.get());
+        } finally {
+            server.destroy();
+            server.waitFor(30, TimeUnit.SECONDS);
+        }
+    }
+
+    // Each connection reads its streams one after another; a stream fails unless it has every user.
+    private static CompletableFuture<?> stream(HttpClient client, int port, int connection, int sent, int requests,
+                                               int users, long[] latencies, AtomicInteger failures) {
+        if (sent == requests) {
+            return CompletableFuture.completedFuture(null);
+        }
+        int index = connection * requests + sent;
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/users"))
+                .header("Accept", "application/x-ndjson")
+                .GET()
+                .build();
+        long start = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofLines())
+                .thenApply(response -> response.statusCode() == 200 ? response.body().filter(line -> !line.isEmpty()).count() : -1)
+                .handle((lines, error) -> {
+                    latencies[index] = System.nanoTime() - start;
+                    if (error != null || lines != users) {
+                        failures.incrementAndGet();
+                    }
+                    return null;
+                })
+                .thenCompose(ignored -> stream(client, port, connection, sent + 1, requests, users, latencies, failures));
+    }
+
+    // Any HTTP answer, even a 404, means the server is up.
+    private static void awaitStarted(HttpClient client, int port, Process server, Path log) throws Exception {
+        HttpRequest probe = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/users/probe@gmail.com")).build();
+        for (int attempt = 0; attempt < 600; attempt++) {
+            if (!server.isAlive()) {
+                throw new IllegalStateException("Server exited, see " + log);
+            }
+            try {
+                client.send(probe, HttpResponse.BodyHandlers.discarding());
+                return;
+            } catch (IOException e) {
+                TimeUnit.MILLISECONDS.sleep(100);
+            }
+        }
+        throw new IllegalStateException("Server did not start, see " + log);
+    }
+
+    // A numeric field of /proc/<pid>/status, such as VmRSS in kB or Threads; 0 once the process is gone.
+    private static long status(Process process, String field) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", String.valueOf(process.pid()), "status"))) {
+                if (line.startsWith(field)) {
+                    return Long.parseLong(line.substring(field.length()).trim().split("\\s+")[0]);
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // the process has exited
+        }
+        return 0;
+    }
+
+    private static double millis(long[] sorted, double quantile) {
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+}
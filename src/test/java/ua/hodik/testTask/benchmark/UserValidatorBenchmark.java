@@ -0,0 +1,55 @@
+package ua.hodik.testTask.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import ua.hodik.testTask.dto.UserDto;
+import ua.hodik.testTask.util.UserMapper;
+import ua.hodik.testTask.util.UserValidator;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// A valid UserDto through UserValidator, against what it did before: the full Bean Validation pass
+// followed by LocalDate.now() and plusYears for the age check.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserValidatorBenchmark {
+    private static final int MIN_AGE = 18;
+
+    private final LocalValidatorFactoryBean validator = new LocalValidatorFactoryBean();
+    private UserValidator userValidator;
+    private UserDto userDto;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        validator.afterPropertiesSet();
+        userValidator = new UserValidator();
+        ReflectionTestUtils.setField(userValidator, "minAge", MIN_AGE);
+        ReflectionTestUtils.setField(userValidator, "validator", validator);
+        userDto = new UserMapper().convertToUserDto(BenchmarkUsers.user(1));
+    }
+
+    @Benchmark
+    public Errors beanValidation() {
+        Errors errors = new BeanPropertyBindingResult(userDto, "userDto");
+        validator.validate(userDto, errors);
+        if (userDto.getBirthDate().plusYears(MIN_AGE).isAfter(LocalDate.now())) {
+            errors.rejectValue("birthDate", "", "You are too young!!!");
+        }
+        return errors;
+    }
+
+    @Benchmark
+    public Errors fastPath() {
+        Errors errors = new BeanPropertyBindingResult(userDto, "userDto");
+        userValidator.validate(userDto, errors);
+        return errors;
+    }
+}
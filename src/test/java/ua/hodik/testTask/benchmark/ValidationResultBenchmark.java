@@ -0,0 +1,80 @@
+package ua.hodik.testTask.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import ua.hodik.testTask.dto.UserDto;
+import ua.hodik.testTask.exceptions.InvalidDataException;
+import ua.hodik.testTask.util.UserMapper;
+import ua.hodik.testTask.util.UserValidator;
+import ua.hodik.testTask.util.ValidationResult;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Validating a bulk batch where invalidPercent of the records are too young: throwing validate() with
+// a BindingResult per record against check() into one reused ValidationResult.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@OperationsPerInvocation(ValidationResultBenchmark.RECORDS)
+@Fork(1)
+public class ValidationResultBenchmark {
+    static final int RECORDS = 1000;
+
+    @Param({"0", "50", "100"})
+    private int invalidPercent;
+
+    private final LocalValidatorFactoryBean validator = new LocalValidatorFactoryBean();
+    private final ValidationResult result = new ValidationResult();
+    private UserValidator userValidator;
+    private UserDto[] userDtos;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        validator.afterPropertiesSet();
+        userValidator = new UserValidator();
+        ReflectionTestUtils.setField(userValidator, "minAge", 18);
+        ReflectionTestUtils.setField(userValidator, "validator", validator);
+        UserMapper userMapper = new UserMapper();
+        userDtos = new UserDto[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            userDtos[i] = userMapper.convertToUserDto(BenchmarkUsers.user(i));
+            if (i % 100 < invalidPercent) {
+                userDtos[i].setBirthDate(LocalDate.now().minusYears(10));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        validator.close();
+    }
+
+    @Benchmark
+    public int throwing() {
+        int invalid = 0;
+        for (UserDto userDto : userDtos) {
+            try {
+                userValidator.validate(userDto, new BeanPropertyBindingResult(userDto, "userDto"));
+            } catch (InvalidDataException e) {
+                invalid += e.getErrors().size();
+            }
+        }
+        return invalid;
+    }
+
+    @Benchmark
+    public int collecting() {
+        int invalid = 0;
+        for (UserDto userDto : userDtos) {
+            userValidator.check(userDto, result);
+            invalid += result.getErrors().size();
+            result.clear();
+        }
+        return invalid;
+    }
+}
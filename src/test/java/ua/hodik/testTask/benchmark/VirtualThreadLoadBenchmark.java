@@ -0,0 +1,155 @@
+package ua.hodik.testTask.benchmark;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ua.hodik.testTask.TestTaskApplication;
+import ua.hodik.testTask.dao.wal.UserJournal;
+import ua.hodik.testTask.dao.wal.WalRecord;
+import ua.hodik.testTask.model.User;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+// Not JMH: starts the application on a random port once per threading mode and sends POST /users from
+// many concurrent connections. The journal commit sleeps for a simulated fsync, so each create blocks
+// its request thread the way a slow disk would. Reports the most requests in service at once and the
+// latency percentiles seen by the clients. The virtual thread run is skipped below Java 21.
+//
+// mvn test-compile exec:java -Dexec.classpathScope=test \
+//     -Dexec.mainClass=ua.hodik.testTask.benchmark.VirtualThreadLoadBenchmark -Dexec.args="1000 2 1000"
+public class VirtualThreadLoadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int requestsPerConnection = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        long diskMillis = args.length > 2 ? Long.parseLong(args[2]) : 1000;
+        System.out.printf("%d connections x %d creates, %d ms per commit%n", connections, requestsPerConnection, diskMillis);
+        run(false, connections, requestsPerConnection, diskMillis);
+        if (Runtime.version().feature() >= 21) {
+            run(true, connections, requestsPerConnection, diskMillis);
+        } else {
+            System.out.printf("virtual:  skipped, running on Java %s%n", Runtime.version());
+        }
+    }
+
+    private static void run(boolean virtual, int connections, int requestsPerConnection, long diskMillis) throws Exception {
+        SlowJournal[] journal = new SlowJournal[1];
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(TestTaskApplication.class)
+                .initializers(applicationContext -> applicationContext.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+                    @Override
+                    public Object postProcessAfterInitialization(Object bean, String beanName) {
+                        return bean instanceof UserJournal delegate ? journal[0] = new SlowJournal(delegate, diskMillis) : bean;
+                    }
+                }))
+                // arguments rather than properties(), which application.properties would override;
+                // the test classpath adds TestConfiguration's validators on top of the scanned ones
+                .run("--server.port=0", "--spring.main.banner-mode=off", "--logging.level.root=WARN",
+                        "--spring.main.allow-bean-definition-overriding=true", "--wal.enabled=false",
+                        "--userStore.engine=heap", "--spring.threads.virtual.enabled=" + virtual)) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            long[] latencies = new long[connections * requestsPerConnection];
+            AtomicInteger failures = new AtomicInteger();
+            long start = System.nanoTime();
+            CompletableFuture<?>[] runs = new CompletableFuture<?>[connections];
+            for (int c = 0; c < connections; c++) {
+                runs[c] = send(client, port, c, 0, requestsPerConnection, latencies, failures);
+            }
+            CompletableFuture.allOf(runs).join();
+            long elapsed = System.nanoTime() - start;
+            Arrays.sort(latencies);
+            System.out.printf("%-9s peak in service %5d, %7.0f req/s, p50 %6.1f ms, p99 %6.1f ms, max %6.1f ms, failed %d%n",
+                    virtual ? "virtual:" : "platform:", journal[0].peak.get(),
+                    latencies.length / (elapsed / 1e9), millis(latencies, 0.50), millis(latencies, 0.99),
+                    millis(latencies, 1.0), failures.get());
+        }
+    }
+
+    // Each connection sends its creates one after another, like a client with a single keep-alive socket.
+    private static CompletableFuture<?> send(HttpClient client, int port, int connection, int sent, int requests,
+                                             long[] latencies, AtomicInteger failures) {
+        if (sent == requests) {
+            return CompletableFuture.completedFuture(null);
+        }
+        int index = connection * requests + sent;
+        String body = String.format("{\"email\":\"%s\",\"firstName\":\"John\",\"lastName\":\"Obama\",\"birthDate\":\"01.01.1990\"}",
+                BenchmarkUsers.email(index));
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/users"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        long start = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, error) -> {
+                    latencies[index] = System.nanoTime() - start;
+                    if (error != null || response.statusCode() != 201) {
+                        failures.incrementAndGet();
+                    }
+                    return null;
+                })
+                .thenCompose(ignored -> send(client, port, connection, sent + 1, requests, latencies, failures));
+    }
+
+    private static double millis(long[] sorted, double quantile) {
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+
+    // Stands in for a disk: commit blocks the request thread, and the number blocked at once is tracked.
+    private static class SlowJournal implements UserJournal {
+        private final UserJournal delegate;
+        private final long diskMillis;
+        private final AtomicInteger inService = new AtomicInteger();
+        private final AtomicInteger peak = new AtomicInteger();
+
+        SlowJournal(UserJournal delegate, long diskMillis) {
+            this.delegate = delegate;
+            this.diskMillis = diskMillis;
+        }
+
+        @Override
+        public long append(WalRecord record) {
+            return delegate.append(record);
+        }
+
+        @Override
+        public void commit(long position) {
+            peak.accumulateAndGet(inService.incrementAndGet(), Math::max);
+            try {
+                TimeUnit.MILLISECONDS.sleep(diskMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inService.decrementAndGet();
+            }
+            delegate.commit(position);
+        }
+
+        @Override
+        public long replay(Consumer<WalRecord> consumer) {
+            return delegate.replay(consumer);
+        }
+
+        @Override
+        public void checkpoint(Collection<Map.Entry<String, User>> users, LongSupplier lastId) {
+            delegate.checkpoint(users, lastId);
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package ua.hodik.testTask.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ua.hodik.testTask.dao.UserDaoImpl;
+import ua.hodik.testTask.dao.wal.FsyncPolicy;
+import ua.hodik.testTask.dao.wal.WriteAheadLog;
+import ua.hodik.testTask.model.User;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Threads(8)
+@Fork(1)
+public class WriteAheadLogBenchmark {
+    private static final int USERS = 100_000;
+
+    @Param({"ALWAYS", "INTERVAL", "OS"})
+    private FsyncPolicy fsyncPolicy;
+
+    @Param({"100"})
+    private long fsyncIntervalMs;
+
+    private Path directory;
+    private WriteAheadLog log;
+    private UserDaoImpl userDao;
+    private User[] users;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("wal-benchmark");
+        log = new WriteAheadLog(directory, fsyncPolicy, fsyncIntervalMs);
+        userDao = new UserDaoImpl(log);
+        users = new User[USERS];
+        for (int i = 0; i < USERS; i++) {
+            users[i] = BenchmarkUsers.user(i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        log.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public User update() {
+        User user = users[ThreadLocalRandom.current().nextInt(USERS)];
+        return userDao.update(user.getEmail(), user);
+    }
+
+    // Same operation without a journal, the ceiling the log is measured against.
+    @Benchmark
+    public User inMemoryBaseline(InMemoryStore store) {
+        User user = users[ThreadLocalRandom.current().nextInt(USERS)];
+        return store.userDao.update(user.getEmail(), user);
+    }
+
+    @State(Scope.Benchmark)
+    public static class InMemoryStore {
+        private final UserDaoImpl userDao = new UserDaoImpl();
+    }
+}
@@ -0,0 +1,34 @@
+package ua.hodik.testTask.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class VirtualThreadConfigTest {
+
+    @Test
+    void newVirtualThreadPerTaskExecutor_ShouldRunTasksOnVirtualThreads() throws Exception {
+        assumeTrue(Runtime.version().feature() >= 21);
+        //given
+        ExecutorService executor = VirtualThreadConfig.newVirtualThreadPerTaskExecutor();
+        //when
+        Object virtual = executor.submit(() -> Thread.class.getMethod("isVirtual").invoke(Thread.currentThread())).get();
+        executor.shutdown();
+        //then
+        assertEquals(Boolean.TRUE, virtual);
+    }
+
+    @Test
+    void newVirtualThreadPerTaskExecutor_ShouldFailBeforeJava21() {
+        assumeFalse(Runtime.version().feature() >= 21);
+        //when
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                VirtualThreadConfig::newVirtualThreadPerTaskExecutor);
+        //then
+        assertTrue(exception.getMessage().startsWith("spring.threads.virtual.enabled needs Java 21"));
+    }
+}
@@ -0,0 +1,139 @@
+package ua.hodik.testTask.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ua.hodik.testTask.TestConfiguration;
+import ua.hodik.testTask.dto.UserDto;
+import ua.hodik.testTask.exceptions.UserNotFoundException;
+import ua.hodik.testTask.service.ReactiveUserService;
+import ua.hodik.testTask.util.UserPatch;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@WebFluxTest(controllers = ReactiveUserController.class)
+@Import(TestConfiguration.class)
+class ReactiveUserControllerTest {
+    private static final String EMAIL = "test@gmail.com";
+
+    @Autowired
+    private WebTestClient client;
+    @MockBean
+    private ReactiveUserService userService;
+
+    @Test
+    void createUser_ShouldReturnCreatedUserWithETag() {
+        //given
+        UserDto userDto = createUserDto(EMAIL);
+        UserDto created = createUserDto(EMAIL);
+        created.setVersion(1);
+        when(userService.createUser(userDto)).thenReturn(Mono.just(created));
+        //when
+        client.post().uri("/users").bodyValue(userDto).exchange()
+                //then
+                .expectStatus().isCreated()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"")
+                .expectBody().jsonPath("$.email").isEqualTo(EMAIL);
+    }
+
+    @Test
+    void createUser_ShouldReturnErrors_WhenUserIsInvalid() {
+        //given
+        UserDto userDto = createUserDto(EMAIL);
+        userDto.setFirstName(" ");
+        //when
+        client.post().uri("/users").bodyValue(userDto).exchange()
+                //then
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("firstName - Should not be empty;")
+                .jsonPath("$.errors[0].field").isEqualTo("firstName");
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void getAll_ShouldStreamUsersAsNdjson() {
+        //given
+        when(userService.findAllUsers()).thenReturn(Flux.just(createUserDto("a@gmail.com"), createUserDto("b@gmail.com")));
+        //when
+        List<UserDto> users = client.get().uri("/users").accept(MediaType.APPLICATION_NDJSON).exchange()
+                .expectStatus().isOk()
+                .returnResult(UserDto.class).getResponseBody().collectList().block();
+        //then
+        assertEquals(List.of("a@gmail.com", "b@gmail.com"),
+                users.stream().map(UserDto::getEmail).toList());
+    }
+
+    @Test
+    void getAll_ShouldReturnJsonArray_ByDefault() {
+        //given
+        when(userService.findAllUsers()).thenReturn(Flux.just(createUserDto("a@gmail.com"), createUserDto("b@gmail.com")));
+        //when
+        client.get().uri("/users").exchange()
+                //then
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody().jsonPath("$[1].email").isEqualTo("b@gmail.com");
+    }
+
+    @Test
+    void patchUpdate_ShouldFailPrecondition_WhenIfMatchIsNotOurTag() {
+        //when
+        client.patch().uri("/users/{email}", EMAIL).header(HttpHeaders.IF_MATCH, "W/\"1\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(Map.of("op", "replace", "path", "/firstName", "value", "Jane"))).exchange()
+                //then
+                .expectStatus().isEqualTo(412);
+        verify(userService, never()).patchUpdate(eq(EMAIL), any(UserPatch.class), anyLong());
+    }
+
+    @Test
+    void remove_ShouldReturnNotFound_WhenUserIsMissing() {
+        //given
+        when(userService.delete(EMAIL)).thenReturn(Mono.error(new UserNotFoundException("User with email test@gmail.com not found")));
+        //when
+        client.delete().uri("/users/{email}", EMAIL).exchange()
+                //then
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.message").isEqualTo("User with email test@gmail.com not found");
+    }
+
+    @Test
+    void searchByDateRange_ShouldReturnErrors_WhenDateIsMissing() {
+        //when
+        client.post().uri("/users/search").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"from\":\"01.01.2000\"}").exchange()
+                //then
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("to - Should not be empty;")
+                .jsonPath("$.errors[0].code").isEqualTo("NotNull");
+        verifyNoInteractions(userService);
+    }
+
+    private static UserDto createUserDto(String email) {
+        UserDto userDto = new UserDto();
+        userDto.setEmail(email);
+        userDto.setFirstName("John");
+        userDto.setLastName("Obama");
+        userDto.setBirthDate(LocalDate.of(2000, 1, 1));
+        return userDto;
+    }
+}
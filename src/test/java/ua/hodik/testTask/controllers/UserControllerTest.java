@@ -15,18 +15,28 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import ua.hodik.testTask.TestConfiguration;
+import ua.hodik.testTask.dto.BulkImportFailureDto;
+import ua.hodik.testTask.dto.BulkImportResultDto;
 import ua.hodik.testTask.dto.DateFormDto;
+import ua.hodik.testTask.dto.SerializedUserDto;
+import ua.hodik.testTask.dto.UserCacheStatsDto;
+import ua.hodik.testTask.dto.UserCountDto;
 import ua.hodik.testTask.dto.UserDto;
+import ua.hodik.testTask.dto.UserPageDto;
 import ua.hodik.testTask.exceptions.UserAlreadyExistsException;
 import ua.hodik.testTask.exceptions.UserNotFoundException;
 import ua.hodik.testTask.exceptions.UserNotUpdatedException;
+import ua.hodik.testTask.exceptions.UserVersionMismatchException;
 import ua.hodik.testTask.model.User;
+import ua.hodik.testTask.service.UserImportService;
 import ua.hodik.testTask.service.UserService;
 import ua.hodik.testTask.util.AbstractValidator;
 
@@ -36,10 +46,16 @@ import java.util.Collections;
 import java.util.List;
 
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(SpringExtension.class)
@@ -82,6 +98,8 @@ class UserControllerTest {
     private ObjectMapper objectMapper;
     @MockBean
     private UserService userService;
+    @MockBean
+    private UserImportService userImportService;
 
     @SpyBean(name = "userValidator")
     @Qualifier("userValidator")
@@ -104,6 +122,66 @@ class UserControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void getAll_WithoutAcceptHeader_ShouldReturnJsonArray() throws Exception {
+        //given
+        when(userService.findAllUsersJson()).thenReturn(objectMapper.writeValueAsBytes(List.of(userDto)));
+        //when then
+        mvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    void getPage_ShouldReturnUsersAndNextCursor() throws Exception {
+        //given
+        when(userService.findPage(EMAIL, 1)).thenReturn(new UserPageDto(List.of(UPDATED_USER_DTO), UPDATED_EMAIL));
+        //when then
+        mvc.perform(get("/users").param("limit", "1").param("cursor", EMAIL))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users", hasSize(1)))
+                .andExpect(jsonPath("$.users[0].email").value(UPDATED_EMAIL))
+                .andExpect(jsonPath("$.nextCursor").value(UPDATED_EMAIL));
+    }
+
+    @Test
+    void streamAll_ShouldWriteOneUserPerLineAcrossPages() throws Exception {
+        //given
+        when(userService.findPage(isNull(), anyInt())).thenReturn(new UserPageDto(List.of(userDto), EMAIL));
+        when(userService.findPage(eq(EMAIL), anyInt())).thenReturn(new UserPageDto(List.of(UPDATED_USER_DTO), null));
+        //when
+        MvcResult result = mvc.perform(get("/users").accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        //then
+        String body = mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(EMAIL, objectMapper.readValue(lines[0], UserDto.class).getEmail());
+        assertEquals(UPDATED_EMAIL, objectMapper.readValue(lines[1], UserDto.class).getEmail());
+    }
+
+    @Test
+    void importUsers_ShouldAcceptNdjsonAndReturnReport() throws Exception {
+        //given
+        BulkImportResultDto report = new BulkImportResultDto(2, 1,
+                List.of(new BulkImportFailureDto(1, EMAIL, USER_WITH_EMAIL_TEST_GMAIL_COM_ALREADY_EXISTS)));
+        when(userImportService.importUsers(any())).thenReturn(report);
+        //when then
+        mvc.perform(MockMvcRequestBuilders
+                        .post("/users/bulk")
+                        .contentType("application/x-ndjson")
+                        .content(objectMapper.writeValueAsString(userDto) + "\n" + objectMapper.writeValueAsString(userDto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(2))
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.failures[0].index").value(1))
+                .andExpect(jsonPath("$.failures[0].message").value(USER_WITH_EMAIL_TEST_GMAIL_COM_ALREADY_EXISTS));
+    }
+
     @Test
     void testCreateUser_Success() throws Exception {
         //given
@@ -175,6 +253,11 @@ class UserControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath(MESSAGE).value(FIRST_NAME_SHOULD_NOT_BE_EMPTY_BIRTH_DATE_YOU_ARE_TOO_YOUNG))
+                .andExpect(jsonPath("$.errors", hasSize(2)))
+                .andExpect(jsonPath("$.errors[0].field").value("firstName"))
+                .andExpect(jsonPath("$.errors[0].code").value("NotBlank"))
+                .andExpect(jsonPath("$.errors[1].field").value("birthDate"))
+                .andExpect(jsonPath("$.errors[1].code").value("MinAge"))
                 .andReturn();
     }
 
@@ -200,6 +283,97 @@ class UserControllerTest {
     }
 
 
+    @Test
+    void getByEmail_ShouldReturnUserWithETag() throws Exception {
+        //given
+        when(userService.findByEmail(EMAIL)).thenReturn(new SerializedUserDto(4, objectMapper.writeValueAsBytes(userDto)));
+        //when then
+        mvc.perform(get("/users/{email}", EMAIL))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath($_EMAIL).value(EMAIL));
+    }
+
+    @Test
+    void getByEmail_MatchingIfNoneMatch_ShouldReturnNotModified() throws Exception {
+        //given
+        when(userService.findByEmail(EMAIL)).thenReturn(new SerializedUserDto(4, objectMapper.writeValueAsBytes(userDto)));
+        //when then
+        mvc.perform(get("/users/{email}", EMAIL).header(HttpHeaders.IF_NONE_MATCH, "\"4\""))
+                .andExpect(status().isNotModified())
+                .andExpect(MockMvcResultMatchers.content().string(""));
+    }
+
+    @Test
+    void getById_ShouldReturnUserWithETag() throws Exception {
+        //given
+        userDto.setId(7);
+        when(userService.findById(7)).thenReturn(new SerializedUserDto(2, objectMapper.writeValueAsBytes(userDto)));
+        //when then
+        mvc.perform(get("/users/id/{id}", 7))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
+                .andExpect(jsonPath("$.id").value(7))
+                .andExpect(jsonPath($_EMAIL).value(EMAIL));
+    }
+
+    @Test
+    void getCacheStats_ShouldReturnStats() throws Exception {
+        //given
+        when(userService.getCacheStats()).thenReturn(new UserCacheStatsDto(3, 1, 0.75, 0, 2));
+        //when then
+        mvc.perform(get("/users/cache/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hits").value(3))
+                .andExpect(jsonPath("$.hitRate").value(0.75));
+    }
+
+    @Test
+    void updateUser_WithIfMatch_ShouldPassExpectedVersion() throws Exception {
+        //given
+        doCallRealMethod().when(userValidator).validate(any(), any());
+        UserDto updatedUserDto = createUserDto(UPDATED_EMAIL);
+        updatedUserDto.setVersion(5);
+        when(userService.update(eq(EMAIL), any(), eq(4L))).thenReturn(updatedUserDto);
+        //when then
+        mvc.perform(MockMvcRequestBuilders
+                        .put("/users/{email}", EMAIL)
+                        .header(HttpHeaders.IF_MATCH, "\"4\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userDto)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"5\""));
+    }
+
+    @Test
+    void updateUser_WithStaleIfMatch_ShouldReturnPreconditionFailed() throws Exception {
+        //given
+        doCallRealMethod().when(userValidator).validate(any(), any());
+        when(userService.update(eq(EMAIL), any(), eq(3L)))
+                .thenThrow(new UserVersionMismatchException("User with email test@gmail.com has version 4, not 3"));
+        //when then
+        mvc.perform(MockMvcRequestBuilders
+                        .put("/users/{email}", EMAIL)
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userDto)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath(MESSAGE).value("User with email test@gmail.com has version 4, not 3"));
+    }
+
+    @Test
+    void patchUpdate_WithWeakIfMatch_ShouldReturnPreconditionFailed() throws Exception {
+        //when then
+        mvc.perform(MockMvcRequestBuilders
+                        .patch("/users/{email}", EMAIL)
+                        .header(HttpHeaders.IF_MATCH, "W/\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(JSON_NODE.toString()))
+                .andExpect(status().isPreconditionFailed());
+        verifyNoInteractions(userService);
+    }
+
     @Test
     void testUpdateUser_UserNotFound() throws Exception {
         //given
@@ -273,6 +447,21 @@ class UserControllerTest {
                 .andExpect(jsonPath("$", hasSize(2)));
     }
 
+    @Test
+    void countByDateRange_ShouldReturnCountOnly() throws Exception {
+        //given
+        when(userService.countByDateRange(any())).thenReturn(new UserCountDto(42));
+        doCallRealMethod().when(dateValidator).validate(any(), any());
+        //when
+        //then
+        mvc.perform(MockMvcRequestBuilders
+                        .post("/users/search/count")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(DATE_FORM)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(42));
+    }
+
     @Test
     void testSearchByDateRange_InvalidDateForm() throws Exception {
         //given
@@ -314,6 +503,45 @@ class UserControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void searchPageByDateRange_ShouldPassCursorAndLimit() throws Exception {
+        //given
+        doCallRealMethod().when(dateValidator).validate(any(), any());
+        when(userService.searchPageByDateRange(any(), eq("2000-01-01:" + EMAIL), eq(1)))
+                .thenReturn(new UserPageDto(List.of(UPDATED_USER_DTO), null));
+        //when then
+        mvc.perform(MockMvcRequestBuilders
+                        .post("/users/search")
+                        .param("limit", "1")
+                        .param("cursor", "2000-01-01:" + EMAIL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(DATE_FORM)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users", hasSize(1)))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void streamSearchByDateRange_ShouldWriteOneUserPerLine() throws Exception {
+        //given
+        doCallRealMethod().when(dateValidator).validate(any(), any());
+        when(userService.searchPageByDateRange(any(), isNull(), anyInt()))
+                .thenReturn(new UserPageDto(List.of(userDto, UPDATED_USER_DTO), null));
+        //when
+        MvcResult result = mvc.perform(MockMvcRequestBuilders
+                        .post("/users/search")
+                        .accept("application/x-ndjson")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(DATE_FORM)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        //then
+        String body = mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(2, body.split("\\n").length);
+    }
+
     @Test
     void patchUpdate_ExistingUserEmailPatched_ReturnsUpdatedUser() throws Exception {
         // given
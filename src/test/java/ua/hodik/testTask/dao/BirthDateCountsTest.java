@@ -0,0 +1,40 @@
+package ua.hodik.testTask.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BirthDateCountsTest {
+
+    @Test
+    void countBetween_ShouldMatchScanAcrossWindowGrowth() {
+        //given
+        BirthDateCounts counts = new BirthDateCounts();
+        List<LocalDate> birthDates = new ArrayList<>();
+        Random random = new Random(11);
+        // spans 1700-2300, so the initial 1900-2079 window grows both ways
+        LocalDate first = LocalDate.of(1700, 1, 1);
+        //when
+        for (int i = 0; i < 5000; i++) {
+            if (!birthDates.isEmpty() && random.nextInt(4) == 0) {
+                counts.replace(birthDates.remove(random.nextInt(birthDates.size())), null);
+            } else {
+                LocalDate birthDate = first.plusDays(random.nextInt(219_000));
+                counts.replace(null, birthDate);
+                birthDates.add(birthDate);
+            }
+        }
+        //then
+        for (int i = 0; i < 200; i++) {
+            LocalDate from = first.plusDays(random.nextInt(219_000));
+            LocalDate to = from.plusDays(random.nextInt(40_000));
+            long expected = birthDates.stream().filter(date -> date.isAfter(from) && date.isBefore(to)).count();
+            assertEquals(expected, counts.countBetween(from, to));
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package ua.hodik.testTask.dao;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ua.hodik.testTask.dao.wal.FsyncPolicy;
+import ua.hodik.testTask.dao.wal.UserJournal;
+import ua.hodik.testTask.dao.wal.WriteAheadLog;
+import ua.hodik.testTask.model.User;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CowUserDaoTest {
+    @TempDir
+    private Path directory;
+
+    private CowUserDao userDao;
+
+    @BeforeEach
+    void setUp() {
+        userDao = new CowUserDao(UserJournal.NONE, canonicalizer());
+    }
+
+    @Test
+    void createIfAbsent_ShouldNotReplaceExistingUser() {
+        //given
+        User existing = userDao.create(createUser("a@gmail.com", LocalDate.of(2000, 1, 1)));
+        //when
+        boolean created = userDao.createIfAbsent(createUser("A@Gmail.com", LocalDate.of(2000, 1, 2))).isPresent();
+        //then
+        assertFalse(created);
+        assertSame(existing, userDao.findByEmail("a@GMAIL.com").orElseThrow());
+    }
+
+    @Test
+    void writes_ShouldNotShareTheCallersUser() {
+        //given
+        User user = createUser("a@gmail.com", LocalDate.of(2000, 1, 1));
+        userDao.create(user);
+        List<User> before = userDao.findAll();
+        //when
+        user.setBirthDate(LocalDate.of(1990, 1, 1));
+        userDao.updateIfPresent("a@gmail.com", user);
+        //then
+        assertEquals(LocalDate.of(2000, 1, 1), before.get(0).getBirthDate());
+        assertEquals(1, before.get(0).getVersion());
+        assertEquals(2, userDao.findByEmail("a@gmail.com").orElseThrow().getVersion());
+        assertEquals(0, user.getVersion());
+    }
+
+    @Test
+    void writes_ShouldStampIdsAndVersions() {
+        //given
+        userDao.create(createUser("a@gmail.com", LocalDate.of(2000, 1, 1)));
+        userDao.create(createUser("b@gmail.com", LocalDate.of(2000, 1, 1)));
+        //when
+        userDao.updateIfPresent("a@gmail.com", createUser("a@gmail.com", LocalDate.of(2000, 1, 2)));
+        userDao.delete("b@gmail.com");
+        User recreated = userDao.create(createUser("b@gmail.com", LocalDate.of(2000, 1, 1)));
+        //then
+        User updated = userDao.findById(1).orElseThrow();
+        assertEquals(2, updated.getVersion());
+        assertEquals(LocalDate.of(2000, 1, 2), updated.getBirthDate());
+        assertTrue(userDao.findById(2).isEmpty());
+        assertEquals(3, recreated.getId());
+        assertEquals(2, userDao.findAll().size());
+    }
+
+    @Test
+    void findPage_ShouldWalkInEmailOrder() {
+        //given
+        for (String email : List.of("d@gmail.com", "b@gmail.com", "a@gmail.com", "e@gmail.com", "c@gmail.com")) {
+            userDao.create(createUser(email, LocalDate.of(2000, 1, 1)));
+        }
+        userDao.delete("b@gmail.com");
+        //when
+        UserPage first = userDao.findPage(null, 2);
+        UserPage second = userDao.findPage(first.nextCursor(), 2);
+        UserPage last = userDao.findPage(second.nextCursor(), 2);
+        //then
+        assertEquals(List.of("a@gmail.com", "c@gmail.com"), emails(first.users()));
+        assertEquals(List.of("d@gmail.com", "e@gmail.com"), emails(second.users()));
+        assertTrue(last.users().isEmpty());
+        assertNull(last.nextCursor());
+    }
+
+    @Test
+    void searchPageByBirthDayRange_ShouldFollowChangedBirthDates() {
+        //given
+        userDao.create(createUser("a@gmail.com", LocalDate.of(2000, 1, 2)));
+        userDao.create(createUser("b@gmail.com", LocalDate.of(2000, 1, 3)));
+        userDao.create(createUser("c@gmail.com", LocalDate.of(2000, 1, 4)));
+        userDao.update("a@gmail.com", createUser("a@gmail.com", LocalDate.of(2000, 1, 5)));
+        LocalDate from = LocalDate.of(2000, 1, 1);
+        LocalDate to = LocalDate.of(2000, 1, 10);
+        //when
+        List<User> first = userDao.searchPageByBirthDayRange(from, to, null, null, 2);
+        List<User> second = userDao.searchPageByBirthDayRange(from, to, LocalDate.of(2000, 1, 4), "c@gmail.com", 2);
+        //then
+        assertEquals(List.of("b@gmail.com", "c@gmail.com"), emails(first));
+        assertEquals(List.of("a@gmail.com"), emails(second));
+        assertEquals(List.of("b@gmail.com"), emails(userDao.searchByBirthDayRange(from, LocalDate.of(2000, 1, 4))));
+    }
+
+    @Test
+    void findAll_ShouldKeepPointInTimeViewWhileWritersContinue() {
+        //given
+        for (int i = 0; i < 10; i++) {
+            userDao.create(createUser(i + "@gmail.com", LocalDate.of(2000, 1, 1)));
+        }
+        List<User> before = userDao.findAll();
+        //when
+        for (int i = 0; i < 10; i++) {
+            userDao.delete(i + "@gmail.com");
+        }
+        //then
+        assertEquals(10, before.size());
+        assertTrue(userDao.findAll().isEmpty());
+        assertEquals(20, userDao.modificationCount());
+    }
+
+    @Test
+    void checkpoint_ShouldRecoverUsersAndIds() throws IOException {
+        //given
+        try (WriteAheadLog log = new WriteAheadLog(directory, FsyncPolicy.OS, 0)) {
+            CowUserDao dao = new CowUserDao(log, canonicalizer());
+            dao.create(createUser("a@gmail.com", LocalDate.of(2000, 1, 1)));
+            dao.create(createUser("b@gmail.com", LocalDate.of(2000, 1, 1)));
+            dao.create(createUser("c@gmail.com", LocalDate.of(2000, 1, 1)));
+            dao.delete("c@gmail.com");
+            dao.checkpoint();
+            dao.update("a@gmail.com", createUser("a@gmail.com", LocalDate.of(2000, 1, 2)));
+        }
+        //when
+        try (WriteAheadLog log = new WriteAheadLog(directory, FsyncPolicy.OS, 0)) {
+            CowUserDao recovered = new CowUserDao(log, canonicalizer());
+            User created = recovered.create(createUser("d@gmail.com", LocalDate.of(2000, 1, 1)));
+            //then
+            assertEquals(List.of("a@gmail.com", "b@gmail.com", "d@gmail.com"), emails(recovered.findAll()));
+            assertEquals(2, recovered.findByEmail("a@gmail.com").orElseThrow().getVersion());
+            assertEquals(4, created.getId());
+        }
+    }
+
+    @Test
+    void randomWrites_ShouldMatchHeapStore() {
+        //given
+        UserDaoImpl expected = new UserDaoImpl();
+        Random random = new Random(42);
+        LocalDate from = LocalDate.of(2000, 1, 5);
+        LocalDate to = LocalDate.of(2000, 1, 25);
+        //when
+        for (int i = 0; i < 2000; i++) {
+            String email = random.nextInt(50) + "@gmail.com";
+            LocalDate birthDate = LocalDate.of(2000, 1, 1).plusDays(random.nextInt(30));
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    expected.createIfAbsent(createUser(email, birthDate));
+                    userDao.createIfAbsent(createUser(email, birthDate));
+                }
+                case 1 -> {
+                    expected.updateIfPresent(email, createUser(email, birthDate));
+                    userDao.updateIfPresent(email, createUser(email, birthDate));
+                }
+                default -> {
+                    expected.delete(email);
+                    userDao.delete(email);
+                }
+            }
+            //then
+            assertEquals(emails(expected.findPage(null, 100).users()), emails(userDao.findPage(null, 100).users()));
+            assertEquals(emails(expected.searchPageByBirthDayRange(from, to, null, null, 100)),
+                    emails(userDao.searchPageByBirthDayRange(from, to, null, null, 100)));
+            assertEquals(expected.countByBirthDayRange(from, to), userDao.countByBirthDayRange(from, to));
+            assertEquals(expected.findById(i % 60).map(User::getEmail), userDao.findById(i % 60).map(User::getEmail));
+        }
+    }
+
+    private static EmailCanonicalizer canonicalizer() {
+        return new EmailCanonicalizer(EmailCanonicalizer.LocalPartPolicy.LOWERCASE);
+    }
+
+    private static List<String> emails(List<User> users) {
+        return users.stream().map(User::getEmail).toList();
+    }
+
+    private static User createUser(String email, LocalDate birthDate) {
+        User user = new User();
+        user.setEmail(email);
+        user.setFirstName("John");
+        user.setLastName("Obama");
+        user.setBirthDate(birthDate);
+        user.setAddress("Kyiv, 25");
+        user.setPhoneNumber("+1234567890");
+        return user;
+    }
+}
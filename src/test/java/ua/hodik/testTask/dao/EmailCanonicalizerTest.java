@@ -0,0 +1,37 @@
+package ua.hodik.testTask.dao;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailCanonicalizerTest {
+
+    @Test
+    void canonicalize_Lowercase_ShouldLowercaseWholeEmail() {
+        //given
+        EmailCanonicalizer canonicalizer = new EmailCanonicalizer(EmailCanonicalizer.LocalPartPolicy.LOWERCASE);
+        //when
+        String email = canonicalizer.canonicalize("John.Doe@GMail.COM");
+        //then
+        assertEquals("john.doe@gmail.com", email);
+    }
+
+    @Test
+    void canonicalize_Preserve_ShouldOnlyLowercaseDomain() {
+        //given
+        EmailCanonicalizer canonicalizer = new EmailCanonicalizer(EmailCanonicalizer.LocalPartPolicy.PRESERVE);
+        //when
+        String email = canonicalizer.canonicalize("John.Doe@GMail.COM");
+        //then
+        assertEquals("John.Doe@gmail.com", email);
+    }
+
+    @Test
+    void canonicalize_CanonicalEmail_ShouldReturnSameInstance() {
+        //given
+        EmailCanonicalizer canonicalizer = new EmailCanonicalizer(EmailCanonicalizer.LocalPartPolicy.LOWERCASE);
+        String email = "john.doe@gmail.com";
+        //when then
+        assertSame(email, canonicalizer.canonicalize(email));
+    }
+}
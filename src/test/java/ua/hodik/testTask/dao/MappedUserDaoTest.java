@@ -0,0 +1,316 @@
+package ua.hodik.testTask.dao;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ua.hodik.testTask.dao.wal.FsyncPolicy;
+import ua.hodik.testTask.dao.wal.UserJournal;
+import ua.hodik.testTask.dao.wal.WalRecord;
+import ua.hodik.testTask.dao.wal.WriteAheadLog;
+import ua.hodik.testTask.model.User;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedUserDaoTest {
+    private static final String EMAIL = "test@gmail.com";
+
+    @TempDir
+    private Path directory;
+
+    private MappedUserDao userDao;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        userDao = new MappedUserDao(directory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userDao.close();
+    }
+
+    @Test
+    void findByEmail_ShouldMaterializeStoredUser() {
+        //given
+        User user = createUser(EMAIL, LocalDate.of(2000, 1, 1));
+        user.setAddress(null);
+        user.setId(42);
+        //when
+        userDao.create(user);
+        //then
+        assertEquals(user, userDao.findByEmail(EMAIL).orElseThrow());
+        assertTrue(userDao.findByEmail("missing@gmail.com").isEmpty());
+    }
+
+    @Test
+    void conditionalOperations_ShouldRespectPresence() {
+        //given
+        User user = createUser(EMAIL, LocalDate.of(2000, 1, 1));
+        //when then
+        assertTrue(userDao.updateIfPresent(EMAIL, user).isEmpty());
+        assertTrue(userDao.createIfAbsent(user).isPresent());
+        assertTrue(userDao.createIfAbsent(user).isEmpty());
+        assertEquals(user, userDao.deleteIfPresent(EMAIL).orElseThrow());
+        assertTrue(userDao.deleteIfPresent(EMAIL).isEmpty());
+    }
+
+    @Test
+    void update_ShouldReplaceRecordAndKeepSingleEntry() {
+        //given
+        userDao.create(createUser(EMAIL, LocalDate.of(2000, 1, 2)));
+        //when
+        userDao.update(EMAIL, createUser(EMAIL, LocalDate.of(1990, 1, 2)));
+        //then
+        assertEquals(1, userDao.findAll().size());
+        assertTrue(userDao.searchByBirthDayRange(LocalDate.of(2000, 1, 1), LocalDate.of(2000, 1, 3)).isEmpty());
+        assertEquals(1, userDao.searchByBirthDayRange(LocalDate.of(1990, 1, 1), LocalDate.of(1990, 1, 3)).size());
+        assertEquals(0, userDao.countByBirthDayRange(LocalDate.of(2000, 1, 1), LocalDate.of(2000, 1, 3)));
+        assertEquals(1, userDao.countByBirthDayRange(LocalDate.of(1990, 1, 1), LocalDate.of(1990, 1, 3)));
+    }
+
+    @Test
+    void manyUsers_ShouldSurviveIndexGrowthAndDeletes() {
+        //given
+        int count = 100_000;
+        for (int i = 0; i < count; i++) {
+            userDao.create(createUser(i + "@gmail.com", LocalDate.of(2000, 1, 1)));
+        }
+        //when
+        for (int i = 0; i < count; i += 2) {
+            userDao.delete(i + "@gmail.com");
+        }
+        //then
+        List<User> users = userDao.findAll();
+        assertEquals(count / 2, users.size());
+        assertTrue(userDao.findByEmail("0@gmail.com").isEmpty());
+        assertEquals("99999@gmail.com", userDao.findByEmail("99999@gmail.com").orElseThrow().getEmail());
+    }
+
+    @Test
+    void constructor_ShouldRebuildFromJournal() throws IOException {
+        //given
+        Path walDirectory = directory.resolve("wal");
+        try (WriteAheadLog log = new WriteAheadLog(walDirectory, FsyncPolicy.OS, 0)) {
+            MappedUserDao journaled = new MappedUserDao(directory.resolve("first"), log);
+            journaled.create(createUser(EMAIL, LocalDate.of(2000, 1, 1)));
+            journaled.create(createUser("deleted@gmail.com", LocalDate.of(2000, 1, 1)));
+            journaled.delete("deleted@gmail.com");
+            journaled.close();
+        }
+        //when
+        try (WriteAheadLog log = new WriteAheadLog(walDirectory, FsyncPolicy.OS, 0)) {
+            MappedUserDao recovered = new MappedUserDao(directory.resolve("second"), log);
+            //then
+            assertEquals(List.of(EMAIL), recovered.findAll().stream().map(User::getEmail).toList());
+            recovered.close();
+        }
+    }
+
+    @Test
+    void findPage_ShouldWalkUsersInEmailOrder() {
+        //given
+        for (String email : List.of("c@gmail.com", "a@gmail.com", "e@gmail.com", "b@gmail.com", "d@gmail.com")) {
+            userDao.create(createUser(email, LocalDate.of(2000, 1, 1)));
+        }
+        userDao.delete("d@gmail.com");
+        //when
+        UserPage first = userDao.findPage(null, 2);
+        UserPage second = userDao.findPage(first.nextCursor(), 2);
+        UserPage last = userDao.findPage(second.nextCursor(), 2);
+        //then
+        assertEquals(List.of("a@gmail.com", "b@gmail.com"), first.users().stream().map(User::getEmail).toList());
+        assertEquals(List.of("c@gmail.com", "e@gmail.com"), second.users().stream().map(User::getEmail).toList());
+        assertTrue(last.users().isEmpty());
+        assertNull(last.nextCursor());
+    }
+
+    @Test
+    void searchPageByBirthDayRange_ShouldContinueAfterBirthDateAndEmail() {
+        //given
+        userDao.create(createUser("b@gmail.com", LocalDate.of(2000, 1, 2)));
+        userDao.create(createUser("a@gmail.com", LocalDate.of(2000, 1, 3)));
+        userDao.create(createUser("c@gmail.com", LocalDate.of(2000, 1, 2)));
+        userDao.create(createUser("d@gmail.com", LocalDate.of(2000, 1, 5)));
+        LocalDate from = LocalDate.of(2000, 1, 1);
+        LocalDate to = LocalDate.of(2000, 1, 5);
+        //when
+        List<User> first = userDao.searchPageByBirthDayRange(from, to, null, null, 2);
+        List<User> second = userDao.searchPageByBirthDayRange(from, to, LocalDate.of(2000, 1, 2), "c@gmail.com", 2);
+        //then
+        assertEquals(List.of("b@gmail.com", "c@gmail.com"), first.stream().map(User::getEmail).toList());
+        assertEquals(List.of("a@gmail.com"), second.stream().map(User::getEmail).toList());
+    }
+
+    @Test
+    void writes_ShouldIncrementVersion() {
+        //given
+        userDao.create(createUser("a@gmail.com", LocalDate.of(2000, 1, 1)));
+        //when
+        userDao.updateIfPresent("a@gmail.com", createUser("a@gmail.com", LocalDate.of(2000, 1, 2)));
+        userDao.computeIfPresent("a@gmail.com", user -> createUser("a@gmail.com", LocalDate.of(2000, 1, 3)));
+        //then
+        assertEquals(3, userDao.findByEmail("a@gmail.com").orElseThrow().getVersion());
+        userDao.delete("a@gmail.com");
+        assertEquals(1, userDao.create(createUser("a@gmail.com", LocalDate.of(2000, 1, 1))).getVersion());
+    }
+
+    @Test
+    void findById_ShouldFollowUpdatesAndDeletes() {
+        //given
+        userDao.create(createUser("a@gmail.com", LocalDate.of(2000, 1, 1)));
+        userDao.create(createUser("b@gmail.com", LocalDate.of(2000, 1, 1)));
+        //when
+        userDao.updateIfPresent("a@gmail.com", createUser("a@gmail.com", LocalDate.of(2000, 1, 2)));
+        userDao.delete("b@gmail.com");
+        User recreated = userDao.create(createUser("b@gmail.com", LocalDate.of(2000, 1, 1)));
+        //then
+        assertEquals(LocalDate.of(2000, 1, 2), userDao.findById(1).orElseThrow().getBirthDate());
+        assertTrue(userDao.findById(2).isEmpty());
+        assertEquals(3, recreated.getId());
+        assertEquals("b@gmail.com", userDao.findById(3).orElseThrow().getEmail());
+    }
+
+    @Test
+    void findByEmail_ShouldIgnoreEmailCase() {
+        //given
+        userDao.create(createUser("John@Gmail.com", LocalDate.of(2000, 1, 1)));
+        //when
+        userDao.updateIfPresent("john@GMAIL.COM", createUser("john@gmail.com", LocalDate.of(2000, 1, 2)));
+        //then
+        assertEquals(1, userDao.findAll().size());
+        assertEquals(LocalDate.of(2000, 1, 2), userDao.findByEmail("JOHN@gmail.com").orElseThrow().getBirthDate());
+        assertTrue(userDao.deleteIfPresent("John@Gmail.com").isPresent());
+    }
+
+    @Test
+    void create_ShouldKeepFieldsLongerThanShortLengthPrefix() {
+        //given
+        User user = createUser(EMAIL, LocalDate.of(2000, 1, 1));
+        user.setAddress("a".repeat(40_000));
+        //when
+        userDao.create(user);
+        userDao.create(createUser("next@gmail.com", LocalDate.of(2000, 1, 1)));
+        //then
+        assertEquals(40_000, userDao.findByEmail(EMAIL).orElseThrow().getAddress().length());
+        assertEquals("Kyiv, 25", userDao.findByEmail("next@gmail.com").orElseThrow().getAddress());
+    }
+
+    @Test
+    void updates_ShouldKeepRecordFileWithinTwiceTheLiveData() {
+        //given
+        User user = createUser(EMAIL, LocalDate.of(2000, 1, 1));
+        user.setAddress("a".repeat(100_000));
+        userDao.create(createUser("other@gmail.com", LocalDate.of(2000, 1, 1)));
+        userDao.create(user);
+        //when
+        for (int i = 0; i < 100; i++) {
+            userDao.update(EMAIL, user);
+        }
+        //then
+        assertTrue(userDao.recordBytes() < 2 * 100_000 + (1 << 20) + 1000);
+        assertEquals(101, userDao.findByEmail(EMAIL).orElseThrow().getVersion());
+        assertEquals("Kyiv, 25", userDao.findByEmail("other@gmail.com").orElseThrow().getAddress());
+        assertEquals("other@gmail.com", userDao.findById(1).orElseThrow().getEmail());
+        assertEquals(EMAIL, userDao.findById(2).orElseThrow().getEmail());
+    }
+
+    @Test
+    void checkpoint_ShouldLetRestartRecoverFromSnapshot() throws IOException {
+        //given
+        Path walDirectory = directory.resolve("wal");
+        try (WriteAheadLog log = new WriteAheadLog(walDirectory, FsyncPolicy.OS, 0)) {
+            MappedUserDao journaled = new MappedUserDao(directory.resolve("first"), log);
+            journaled.create(createUser("a@gmail.com", LocalDate.of(2000, 1, 1)));
+            journaled.create(createUser("deleted@gmail.com", LocalDate.of(2000, 1, 1)));
+            journaled.delete("deleted@gmail.com");
+            journaled.updateIfPresent("a@gmail.com", createUser("a@gmail.com", LocalDate.of(2000, 1, 2)));
+            journaled.checkpoint();
+            journaled.create(createUser("tail@gmail.com", LocalDate.of(2000, 1, 1)));
+            journaled.close();
+        }
+        //when
+        try (WriteAheadLog log = new WriteAheadLog(walDirectory, FsyncPolicy.OS, 0)) {
+            MappedUserDao recovered = new MappedUserDao(directory.resolve("second"), log);
+            User created = recovered.create(createUser("new@gmail.com", LocalDate.of(2000, 1, 1)));
+            //then
+            assertEquals(LocalDate.of(2000, 1, 2), recovered.findByEmail("a@gmail.com").orElseThrow().getBirthDate());
+            assertEquals(2, recovered.findByEmail("a@gmail.com").orElseThrow().getVersion());
+            assertEquals(3, recovered.findByEmail("tail@gmail.com").orElseThrow().getId());
+            assertEquals(4, created.getId());
+            assertTrue(recovered.findByEmail("deleted@gmail.com").isEmpty());
+            recovered.close();
+        }
+    }
+
+    @Test
+    void checkpoint_ShouldKeepWritesMadeBeforeTheJournalRolls() throws IOException {
+        //given
+        Path walDirectory = directory.resolve("wal");
+        MappedUserDao[] store = new MappedUserDao[1];
+        try (WriteAheadLog log = new WriteAheadLog(walDirectory, FsyncPolicy.OS, 0)) {
+            // writes that land after checkpoint() starts but before the log is cut
+            UserJournal racingWrites = new UserJournal() {
+                @Override
+                public long append(WalRecord record) {
+                    return log.append(record);
+                }
+
+                @Override
+                public void commit(long position) {
+                    log.commit(position);
+                }
+
+                @Override
+                public long replay(Consumer<WalRecord> consumer) {
+                    return log.replay(consumer);
+                }
+
+                @Override
+                public void checkpoint(Collection<Map.Entry<String, User>> users, LongSupplier lastId) {
+                    store[0].create(createUser("new@gmail.com", LocalDate.of(2000, 1, 1)));
+                    store[0].updateIfPresent("a@gmail.com", createUser("a@gmail.com", LocalDate.of(2000, 1, 2)));
+                    store[0].delete("deleted@gmail.com");
+                    log.checkpoint(users, lastId);
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+            store[0] = new MappedUserDao(directory.resolve("first"), racingWrites);
+            store[0].create(createUser("a@gmail.com", LocalDate.of(2000, 1, 1)));
+            store[0].create(createUser("deleted@gmail.com", LocalDate.of(2000, 1, 1)));
+            store[0].checkpoint();
+            store[0].close();
+        }
+        //when
+        try (WriteAheadLog log = new WriteAheadLog(walDirectory, FsyncPolicy.OS, 0)) {
+            MappedUserDao recovered = new MappedUserDao(directory.resolve("second"), log);
+            //then
+            assertEquals(List.of("a@gmail.com", "new@gmail.com"), recovered.findAll().stream().map(User::getEmail).sorted().toList());
+            assertEquals(LocalDate.of(2000, 1, 2), recovered.findByEmail("a@gmail.com").orElseThrow().getBirthDate());
+            recovered.close();
+        }
+    }
+
+    private static User createUser(String email, LocalDate birthDate) {
+        User user = new User();
+        user.setEmail(email);
+        user.setFirstName("John");
+        user.setLastName("Obama");
+        user.setBirthDate(birthDate);
+        user.setAddress("Kyiv, 25");
+        user.setPhoneNumber("+1234567890");
+        return user;
+    }
+}
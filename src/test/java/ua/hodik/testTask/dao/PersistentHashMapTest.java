@@ -0,0 +1,58 @@
+package ua.hodik.testTask.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentHashMapTest {
+
+    @Test
+    void put_ShouldKeepOlderVersionsUnchanged() {
+        //given
+        PersistentHashMap<String, Integer> first = PersistentHashMap.<String, Integer>empty().put("a", 1);
+        //when
+        PersistentHashMap<String, Integer> second = first.put("a", 2).put("b", 3);
+        //then
+        assertEquals(1, first.get("a"));
+        assertNull(first.get("b"));
+        assertEquals(2, second.get("a"));
+        assertEquals(2, second.size());
+    }
+
+    @Test
+    void randomWrites_ShouldMatchHashMapIncludingFullHashCollisions() {
+        //given
+        PersistentHashMap<Key, Integer> map = PersistentHashMap.empty();
+        Map<Key, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+        //when
+        for (int i = 0; i < 20_000; i++) {
+            // 3 keys per hash, so both collision nodes and deep tries are built and taken apart
+            Key key = new Key(random.nextInt(3000));
+            if (random.nextInt(3) == 0) {
+                map = map.remove(key);
+                expected.remove(key);
+            } else {
+                map = map.put(key, i);
+                expected.put(key, i);
+            }
+            //then
+            assertEquals(expected.size(), map.size());
+            assertEquals(expected.get(key), map.get(key));
+        }
+        for (int i = 0; i < 3000; i++) {
+            assertEquals(expected.get(new Key(i)), map.get(new Key(i)));
+        }
+    }
+
+    private record Key(int value) {
+        @Override
+        public int hashCode() {
+            return (value / 3) * 0x9E3779B9;
+        }
+    }
+}
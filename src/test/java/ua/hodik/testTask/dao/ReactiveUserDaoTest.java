@@ -0,0 +1,107 @@
+package ua.hodik.testTask.dao;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import ua.hodik.testTask.model.User;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+class ReactiveUserDaoTest {
+    private static final int USERS = ReactiveUserDao.PAGE_SIZE * 2 + 10;
+
+    private final UserDaoImpl userDao = spy(new UserDaoImpl());
+    private final ReactiveUserDao reactiveUserDao = new ReactiveUserDao(userDao, Schedulers.immediate());
+
+    @Test
+    void findAll_ShouldStreamEveryPageInEmailOrder() {
+        //given
+        createUsers();
+        //when
+        List<User> users = reactiveUserDao.findAll().collectList().block();
+        //then
+        assertEquals(userDao.findAll().stream().map(User::getEmail).sorted().toList(),
+                users.stream().map(User::getEmail).toList());
+        verify(userDao, times(3)).findPage(any(), anyInt());
+    }
+
+    @Test
+    void findAll_ShouldReadOnlyThePagesTheSubscriberAsksFor() {
+        //given
+        createUsers();
+        //when
+        List<User> users = reactiveUserDao.findAll().take(10).collectList().block();
+        //then
+        assertEquals(10, users.size());
+        verify(userDao, times(1)).findPage(isNull(), anyInt());
+        verifyNoMoreInteractions(ignoreStubs(userDao));
+    }
+
+    @Test
+    void searchByBirthDayRange_ShouldMatchTheListSearch() {
+        //given
+        createUsers();
+        LocalDate from = LocalDate.of(1950, 1, 1);
+        LocalDate to = LocalDate.of(2030, 1, 1);
+        //when
+        List<User> users = reactiveUserDao.searchByBirthDayRange(from, to).collectList().block();
+        //then
+        assertEquals(USERS, users.size());
+        assertEquals(userDao.searchPageByBirthDayRange(from, to, null, null, USERS), users);
+    }
+
+    @Test
+    void createIfAbsent_ShouldBeEmpty_WhenEmailIsTaken() {
+        //given
+        reactiveUserDao.createIfAbsent(user(1)).block();
+        //when
+        User created = reactiveUserDao.createIfAbsent(user(1)).block();
+        //then
+        assertNull(created);
+        assertEquals(1, userDao.findAll().size());
+    }
+
+    @Test
+    void reads_ShouldRunOnTheStoreScheduler() {
+        //given
+        createUsers();
+        Scheduler scheduler = Schedulers.newSingle("store");
+        ReactiveUserDao scheduled = new ReactiveUserDao(userDao, scheduler);
+        List<String> threads = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return invocation.callRealMethod();
+        }).when(userDao).findPage(any(), anyInt());
+        //when
+        scheduled.findByEmail("user1@gmail.com").block();
+        scheduled.findAll().blockLast();
+        //then
+        verify(userDao).findByEmail("user1@gmail.com");
+        assertEquals(3, threads.size());
+        assertTrue(threads.stream().allMatch(thread -> thread.startsWith("store")));
+        scheduler.dispose();
+    }
+
+    private void createUsers() {
+        IntStream.range(0, USERS).forEach(i -> userDao.create(user(i)));
+        clearInvocations(userDao);
+    }
+
+    private static User user(int i) {
+        User user = new User();
+        user.setEmail("user" + i + "@gmail.com");
+        user.setFirstName("John");
+        user.setLastName("Obama");
+        user.setBirthDate(LocalDate.of(1960, 1, 1).plusDays(i * 7L));
+        return user;
+    }
+}
@@ -0,0 +1,334 @@
+package ua.hodik.testTask.dao;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ua.hodik.testTask.model.User;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserDaoImplTest {
+    private static final String EMAIL = "test@gmail.com";
+    private static final int THREADS = 8;
+    private static final int USERS_PER_THREAD = 1000;
+
+    private UserDaoImpl userDao;
+
+    @BeforeEach
+    void setUp() {
+        userDao = new UserDaoImpl();
+    }
+
+    @Test
+    void create_ShouldStoreUser() {
+        //given
+        User user = createUser(EMAIL, LocalDate.of(2000, 1, 1));
+        //when
+        userDao.create(user);
+        //then
+        assertEquals(user, userDao.findByEmail(EMAIL).orElseThrow());
+    }
+
+    @Test
+    void createIfAbsent_ShouldNotReplaceExistingUser() {
+        //given
+        User existing = createUser(EMAIL, LocalDate.of(2000, 1, 1));
+        userDao.create(existing);
+        //when
+        Optional<User> created = userDao.createIfAbsent(createUser(EMAIL, LocalDate.of(1990, 1, 1)));
+        //then
+        assertTrue(created.isEmpty());
+        assertSame(existing, userDao.findByEmail(EMAIL).orElseThrow());
+    }
+
+    @Test
+    void updateIfPresent_ShouldNotCreateMissingUser() {
+        //when
+        Optional<User> updated = userDao.updateIfPresent(EMAIL, createUser(EMAIL, LocalDate.of(2000, 1, 1)));
+        //then
+        assertTrue(updated.isEmpty());
+        assertTrue(userDao.findByEmail(EMAIL).isEmpty());
+    }
+
+    @Test
+    void deleteIfPresent_ShouldReturnRemovedUser() {
+        //given
+        User user = createUser(EMAIL, LocalDate.of(2000, 1, 1));
+        userDao.create(user);
+        //when
+        Optional<User> removed = userDao.deleteIfPresent(EMAIL);
+        //then
+        assertSame(user, removed.orElseThrow());
+        assertTrue(userDao.deleteIfPresent(EMAIL).isEmpty());
+    }
+
+    @Test
+    void concurrentCreateIfAbsent_ShouldCreateOnlyOnce() throws InterruptedException {
+        //given
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger created = new AtomicInteger();
+        for (int t = 0; t < THREADS; t++) {
+            executor.execute(() -> {
+                awaitQuietly(start);
+                userDao.createIfAbsent(createUser(EMAIL, LocalDate.of(2000, 1, 1)))
+                        .ifPresent(user -> created.incrementAndGet());
+            });
+        }
+        //when
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        //then
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    void delete_ShouldRemoveUser() {
+        //given
+        userDao.create(createUser(EMAIL, LocalDate.of(2000, 1, 1)));
+        //when
+        userDao.delete(EMAIL);
+        //then
+        assertTrue(userDao.findByEmail(EMAIL).isEmpty());
+        assertTrue(userDao.findAll().isEmpty());
+    }
+
+    @Test
+    void searchByBirthDayRange_ShouldExcludeBounds() {
+        //given
+        userDao.create(createUser("a@gmail.com", LocalDate.of(2000, 1, 1)));
+        userDao.create(createUser("b@gmail.com", LocalDate.of(2000, 1, 2)));
+        userDao.create(createUser("c@gmail.com", LocalDate.of(2000, 1, 3)));
+        //when
+        List<User> users = userDao.searchByBirthDayRange(LocalDate.of(2000, 1, 1), LocalDate.of(2000, 1, 3));
+        //then
+        assertEquals(1, users.size());
+        assertEquals("b@gmail.com", users.get(0).getEmail());
+    }
+
+    @Test
+    void searchByBirthDayRange_ShouldFollowChangedBirthDate() {
+        //given
+        userDao.create(createUser(EMAIL, LocalDate.of(2000, 1, 2)));
+        //when
+        userDao.update(EMAIL, createUser(EMAIL, LocalDate.of(1990, 1, 2)));
+        //then
+        assertTrue(userDao.searchByBirthDayRange(LocalDate.of(2000, 1, 1), LocalDate.of(2000, 1, 3)).isEmpty());
+        assertEquals(1, userDao.searchByBirthDayRange(LocalDate.of(1990, 1, 1), LocalDate.of(1990, 1, 3)).size());
+    }
+
+    @Test
+    void searchByBirthDayRange_ShouldSkipDeletedUser() {
+        //given
+        userDao.create(createUser(EMAIL, LocalDate.of(2000, 1, 2)));
+        //when
+        userDao.delete(EMAIL);
+        //then
+        assertTrue(userDao.searchByBirthDayRange(LocalDate.of(2000, 1, 1), LocalDate.of(2000, 1, 3)).isEmpty());
+    }
+
+    @Test
+    void countByBirthDayRange_ShouldFollowWrites() {
+        //given
+        userDao.create(createUser("a@gmail.com", LocalDate.of(2000, 1, 2)));
+        userDao.create(createUser("b@gmail.com", LocalDate.of(2000, 1, 2)));
+        userDao.create(createUser("c@gmail.com", LocalDate.of(1850, 1, 2)));
+        //when
+        userDao.update("a@gmail.com", createUser("a@gmail.com", LocalDate.of(1990, 1, 2)));
+        userDao.delete("b@gmail.com");
+        //then
+        assertEquals(0, userDao.countByBirthDayRange(LocalDate.of(2000, 1, 1), LocalDate.of(2000, 1, 3)));
+        assertEquals(1, userDao.countByBirthDayRange(LocalDate.of(1990, 1, 1), LocalDate.of(1990, 1, 3)));
+        assertEquals(2, userDao.countByBirthDayRange(LocalDate.of(1800, 1, 1), LocalDate.of(2100, 1, 1)));
+    }
+
+    @Test
+    void concurrentCreate_ShouldNotLoseWrites() throws InterruptedException {
+        //given
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            executor.execute(() -> {
+                awaitQuietly(start);
+                for (int i = 0; i < USERS_PER_THREAD; i++) {
+                    userDao.create(createUser(thread + "-" + i + "@gmail.com", LocalDate.of(2000, 1, 1)));
+                }
+            });
+        }
+        //when
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        //then
+        assertEquals(THREADS * USERS_PER_THREAD, userDao.findAll().size());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void findPage_ShouldWalkUsersInEmailOrder() {
+        //given
+        for (String email : List.of("c@gmail.com", "a@gmail.com", "e@gmail.com", "b@gmail.com", "d@gmail.com")) {
+            userDao.create(createUser(email, LocalDate.of(2000, 1, 1)));
+        }
+        userDao.delete("d@gmail.com");
+        //when
+        UserPage first = userDao.findPage(null, 2);
+        UserPage second = userDao.findPage(first.nextCursor(), 2);
+        UserPage last = userDao.findPage(second.nextCursor(), 2);
+        //then
+        assertEquals(List.of("a@gmail.com", "b@gmail.com"), first.users().stream().map(User::getEmail).toList());
+        assertEquals(List.of("c@gmail.com", "e@gmail.com"), second.users().stream().map(User::getEmail).toList());
+        assertTrue(last.users().isEmpty());
+        assertNull(last.nextCursor());
+    }
+
+    @Test
+    void searchPageByBirthDayRange_ShouldContinueAfterBirthDateAndEmail() {
+        //given
+        userDao.create(createUser("b@gmail.com", LocalDate.of(2000, 1, 2)));
+        userDao.create(createUser("a@gmail.com", LocalDate.of(2000, 1, 3)));
+        userDao.create(createUser("c@gmail.com", LocalDate.of(2000, 1, 2)));
+        userDao.create(createUser("d@gmail.com", LocalDate.of(2000, 1, 5)));
+        LocalDate from = LocalDate.of(2000, 1, 1);
+        LocalDate to = LocalDate.of(2000, 1, 5);
+        //when
+        List<User> first = userDao.searchPageByBirthDayRange(from, to, null, null, 2);
+        List<User> second = userDao.searchPageByBirthDayRange(from, to, LocalDate.of(2000, 1, 2), "c@gmail.com", 2);
+        //then
+        assertEquals(List.of("b@gmail.com", "c@gmail.com"), first.stream().map(User::getEmail).toList());
+        assertEquals(List.of("a@gmail.com"), second.stream().map(User::getEmail).toList());
+    }
+
+    @Test
+    void createAllIfAbsent_ShouldSkipTakenEmails() {
+        //given
+        userDao.create(createUser("a@gmail.com", LocalDate.of(2000, 1, 1)));
+        List<User> batch = List.of(createUser("a@gmail.com", LocalDate.of(2000, 1, 2)),
+                createUser("b@gmail.com", LocalDate.of(2000, 1, 2)),
+                createUser("b@gmail.com", LocalDate.of(2000, 1, 3)));
+        //when
+        boolean[] created = userDao.createAllIfAbsent(batch);
+        //then
+        assertArrayEquals(new boolean[]{false, true, false}, created);
+        assertEquals(LocalDate.of(2000, 1, 1), userDao.findByEmail("a@gmail.com").orElseThrow().getBirthDate());
+        assertEquals(1, userDao.searchByBirthDayRange(LocalDate.of(2000, 1, 1), LocalDate.of(2000, 1, 3)).size());
+    }
+
+    @Test
+    void createAllIfAbsent_WithOnlyTakenEmails_ShouldNotCountModification() {
+        //given
+        userDao.create(createUser("a@gmail.com", LocalDate.of(2000, 1, 1)));
+        long modifications = userDao.modificationCount();
+        //when
+        userDao.createAllIfAbsent(List.of(createUser("a@gmail.com", LocalDate.of(2000, 1, 2))));
+        //then
+        assertEquals(modifications, userDao.modificationCount());
+    }
+
+    @Test
+    void computeIfPresent_ConcurrentChanges_ShouldNotBeLost() throws InterruptedException {
+        //given
+        userDao.create(createUser("a@gmail.com", LocalDate.of(2000, 1, 1)));
+        int increments = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        //when
+        for (int t = 0; t < THREADS; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < increments; i++) {
+                    userDao.computeIfPresent("a@gmail.com", user -> createUser(user.getEmail(), user.getBirthDate().plusDays(1)));
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        //then
+        User user = userDao.findByEmail("a@gmail.com").orElseThrow();
+        assertEquals(LocalDate.of(2000, 1, 1).plusDays(THREADS * increments), user.getBirthDate());
+        assertEquals(1 + THREADS * increments, user.getVersion());
+        assertEquals(1, userDao.searchByBirthDayRange(user.getBirthDate().minusDays(1), user.getBirthDate().plusDays(1)).size());
+    }
+
+    @Test
+    void computeIfPresent_FailingFunction_ShouldKeepStoredUser() {
+        //given
+        User stored = userDao.create(createUser("a@gmail.com", LocalDate.of(2000, 1, 1)));
+        //when
+        assertThrows(IllegalStateException.class, () -> userDao.computeIfPresent("a@gmail.com", user -> {
+            throw new IllegalStateException();
+        }));
+        //then
+        assertSame(stored, userDao.findByEmail("a@gmail.com").orElseThrow());
+        assertTrue(userDao.computeIfPresent("missing@gmail.com", user -> user).isEmpty());
+    }
+
+    @Test
+    void writes_ShouldIncrementVersion() {
+        //given
+        userDao.create(createUser("a@gmail.com", LocalDate.of(2000, 1, 1)));
+        //when
+        userDao.updateIfPresent("a@gmail.com", createUser("a@gmail.com", LocalDate.of(2000, 1, 2)));
+        userDao.computeIfPresent("a@gmail.com", user -> createUser("a@gmail.com", LocalDate.of(2000, 1, 3)));
+        //then
+        assertEquals(3, userDao.findByEmail("a@gmail.com").orElseThrow().getVersion());
+        userDao.delete("a@gmail.com");
+        assertEquals(1, userDao.create(createUser("a@gmail.com", LocalDate.of(2000, 1, 1))).getVersion());
+    }
+
+    @Test
+    void create_ShouldAssignIncreasingIds() {
+        //given
+        User first = userDao.create(createUser("a@gmail.com", LocalDate.of(2000, 1, 1)));
+        User second = userDao.create(createUser("b@gmail.com", LocalDate.of(2000, 1, 1)));
+        //when
+        userDao.updateIfPresent("a@gmail.com", createUser("a@gmail.com", LocalDate.of(2000, 1, 2)));
+        userDao.delete("b@gmail.com");
+        User third = userDao.create(createUser("b@gmail.com", LocalDate.of(2000, 1, 1)));
+        //then
+        assertEquals(1, first.getId());
+        assertEquals(2, second.getId());
+        assertEquals(3, third.getId());
+        assertEquals(LocalDate.of(2000, 1, 2), userDao.findById(1).orElseThrow().getBirthDate());
+        assertTrue(userDao.findById(2).isEmpty());
+        assertSame(third, userDao.findById(3).orElseThrow());
+    }
+
+    @Test
+    void findByEmail_ShouldIgnoreEmailCase() {
+        //given
+        User stored = userDao.create(createUser("John@Gmail.com", LocalDate.of(2000, 1, 1)));
+        //when
+        Optional<User> duplicate = userDao.createIfAbsent(createUser("john@GMAIL.COM", LocalDate.of(2000, 1, 2)));
+        //then
+        assertTrue(duplicate.isEmpty());
+        assertSame(stored, userDao.findByEmail("JOHN@gmail.com").orElseThrow());
+        assertEquals("john@gmail.com", userDao.findPage(null, 1).nextCursor());
+    }
+
+    private static User createUser(String email, LocalDate birthDate) {
+        User user = new User();
+        user.setEmail(email);
+        user.setFirstName("John");
+        user.setLastName("Obama");
+        user.setBirthDate(birthDate);
+        user.setAddress("Kyiv, 25");
+        user.setPhoneNumber("+1234567890");
+        return user;
+    }
+}
@@ -0,0 +1,29 @@
+package ua.hodik.testTask.dao.wal;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckpointSchedulerTest {
+
+    @Test
+    void checkpoint_ShouldRunAgainAfterFailure() throws InterruptedException {
+        //given
+        CountDownLatch attempts = new CountDownLatch(3);
+        Checkpointable failing = () -> {
+            attempts.countDown();
+            throw new UncheckedIOException(new IOException("Disk full"));
+        };
+        //when
+        try (CheckpointScheduler ignored = new CheckpointScheduler(List.of(failing), 1)) {
+            //then
+            assertTrue(attempts.await(5, TimeUnit.SECONDS));
+        }
+    }
+}
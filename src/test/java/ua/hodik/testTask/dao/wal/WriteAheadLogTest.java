@@ -0,0 +1,231 @@
+package ua.hodik.testTask.dao.wal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ua.hodik.testTask.dao.UserDaoImpl;
+import ua.hodik.testTask.model.User;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAheadLogTest {
+    private static final String EMAIL = "test@gmail.com";
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void replay_ShouldReturnRecordsInAppendOrder() throws IOException {
+        //given
+        try (WriteAheadLog log = new WriteAheadLog(directory, FsyncPolicy.ALWAYS, 0)) {
+            log.commit(log.append(WalRecord.create(EMAIL, createUser(EMAIL))));
+            log.commit(log.append(WalRecord.delete(EMAIL)));
+        }
+        //when
+        List<WalRecord> records = replay();
+        //then
+        assertEquals(2, records.size());
+        assertEquals(WalRecord.Operation.CREATE, records.get(0).operation());
+        assertEquals(createUser(EMAIL), records.get(0).user());
+        assertEquals(WalRecord.Operation.DELETE, records.get(1).operation());
+        assertEquals(EMAIL, records.get(1).email());
+    }
+
+    @Test
+    void replay_ShouldStopAtTornRecord() throws IOException {
+        //given
+        try (WriteAheadLog log = new WriteAheadLog(directory, FsyncPolicy.OS, 0)) {
+            log.append(WalRecord.create(EMAIL, createUser(EMAIL)));
+            log.append(WalRecord.create("other@gmail.com", createUser("other@gmail.com")));
+        }
+        Path segment = singleSegment();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        //when
+        List<WalRecord> records = replay();
+        //then
+        assertEquals(1, records.size());
+        assertEquals(EMAIL, records.get(0).email());
+    }
+
+    @Test
+    void userDao_ShouldRecoverStateFromLog() throws IOException {
+        //given
+        try (WriteAheadLog log = new WriteAheadLog(directory, FsyncPolicy.INTERVAL, 10)) {
+            UserDaoImpl userDao = new UserDaoImpl(log);
+            userDao.create(createUser(EMAIL));
+            userDao.create(createUser("deleted@gmail.com"));
+            userDao.deleteIfPresent("deleted@gmail.com");
+            User updated = createUser(EMAIL);
+            updated.setBirthDate(LocalDate.of(1990, 5, 5));
+            userDao.updateIfPresent(EMAIL, updated);
+        }
+        //when
+        try (WriteAheadLog log = new WriteAheadLog(directory, FsyncPolicy.INTERVAL, 10)) {
+            UserDaoImpl recovered = new UserDaoImpl(log);
+            //then
+            assertEquals(1, recovered.findAll().size());
+            assertEquals(LocalDate.of(1990, 5, 5), recovered.findByEmail(EMAIL).orElseThrow().getBirthDate());
+            assertEquals(2, recovered.findByEmail(EMAIL).orElseThrow().getVersion());
+            assertEquals(1, recovered.searchByBirthDayRange(LocalDate.of(1990, 1, 1), LocalDate.of(1991, 1, 1)).size());
+        }
+    }
+
+    @Test
+    void checkpoint_ShouldReplaceCoveredSegmentsWithSnapshot() throws IOException {
+        //given
+        try (WriteAheadLog log = new WriteAheadLog(directory, FsyncPolicy.OS, 0)) {
+            UserDaoImpl userDao = new UserDaoImpl(log);
+            userDao.create(createUser(EMAIL));
+            userDao.create(createUser("deleted@gmail.com"));
+            userDao.deleteIfPresent("deleted@gmail.com");
+            //when
+            userDao.checkpoint();
+            userDao.create(createUser("tail@gmail.com"));
+        }
+        //then
+        List<WalRecord> records = replay();
+        assertEquals(List.of(EMAIL, "tail@gmail.com"), records.stream().map(WalRecord::email).toList());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void checkpoint_ShouldKeepIdsOfDeletedUsersTaken() throws IOException {
+        //given
+        try (WriteAheadLog log = new WriteAheadLog(directory, FsyncPolicy.OS, 0)) {
+            UserDaoImpl userDao = new UserDaoImpl(log);
+            userDao.create(createUser(EMAIL));
+            userDao.create(createUser("deleted@gmail.com"));
+            userDao.deleteIfPresent("deleted@gmail.com");
+            userDao.checkpoint();
+        }
+        //when
+        try (WriteAheadLog log = new WriteAheadLog(directory, FsyncPolicy.OS, 0)) {
+            UserDaoImpl recovered = new UserDaoImpl(log);
+            User created = recovered.create(createUser("new@gmail.com"));
+            //then
+            assertEquals(3, created.getId());
+            assertEquals(EMAIL, recovered.findById(1).orElseThrow().getEmail());
+        }
+    }
+
+    @Test
+    void checkpoint_ShouldRestoreUsersUnderTheirStoredKeys() throws IOException {
+        //given
+        try (WriteAheadLog log = new WriteAheadLog(directory, FsyncPolicy.OS, 0)) {
+            UserDaoImpl userDao = new UserDaoImpl(log);
+            userDao.create(createUser("a@gmail.com"));
+            userDao.create(createUser("b@gmail.com"));
+            // a PUT to a@gmail.com whose body carries another email
+            userDao.updateIfPresent("a@gmail.com", createUser("B@gmail.com"));
+            userDao.checkpoint();
+        }
+        //when
+        try (WriteAheadLog log = new WriteAheadLog(directory, FsyncPolicy.OS, 0)) {
+            UserDaoImpl recovered = new UserDaoImpl(log);
+            //then
+            assertEquals(2, recovered.findAll().size());
+            assertEquals("B@gmail.com", recovered.findByEmail("a@gmail.com").orElseThrow().getEmail());
+            assertEquals(2, recovered.findByEmail("b@gmail.com").orElseThrow().getId());
+        }
+    }
+
+    @Test
+    void constructor_ShouldAppendAfterSnapshotWhoseSegmentWasNeverCreated() throws IOException {
+        //given
+        Path oldSegment;
+        byte[] oldSegmentContent;
+        try (WriteAheadLog log = new WriteAheadLog(directory, FsyncPolicy.OS, 0)) {
+            UserDaoImpl userDao = new UserDaoImpl(log);
+            userDao.create(createUser(EMAIL));
+            oldSegment = singleSegment();
+            oldSegmentContent = Files.readAllBytes(oldSegment);
+            userDao.checkpoint();
+        }
+        // as if the process died after the snapshot was written but before the new segment was created
+        Files.delete(singleSegment());
+        Files.write(oldSegment, oldSegmentContent);
+        try (WriteAheadLog log = new WriteAheadLog(directory, FsyncPolicy.OS, 0)) {
+            new UserDaoImpl(log).create(createUser("after-restart@gmail.com"));
+        }
+        //when
+        try (WriteAheadLog log = new WriteAheadLog(directory, FsyncPolicy.OS, 0)) {
+            UserDaoImpl recovered = new UserDaoImpl(log);
+            //then
+            assertEquals(2, recovered.findAll().size());
+            assertEquals(2, recovered.findByEmail("after-restart@gmail.com").orElseThrow().getId());
+        }
+    }
+
+    @Test
+    void checkpoint_ShouldNotLoseConcurrentWrites() throws Exception {
+        //given
+        int writers = 4;
+        int usersPerWriter = 2000;
+        try (WriteAheadLog log = new WriteAheadLog(directory, FsyncPolicy.OS, 0)) {
+            UserDaoImpl userDao = new UserDaoImpl(log);
+            ExecutorService executor = Executors.newFixedThreadPool(writers);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                int writer = w;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < usersPerWriter; i++) {
+                        userDao.create(createUser(writer + "-" + i + "@gmail.com"));
+                    }
+                }));
+            }
+            //when
+            for (int i = 0; i < 5; i++) {
+                userDao.checkpoint();
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+        }
+        //then
+        try (WriteAheadLog log = new WriteAheadLog(directory, FsyncPolicy.OS, 0)) {
+            assertEquals(writers * usersPerWriter, new UserDaoImpl(log).findAll().size());
+        }
+    }
+
+    private List<WalRecord> replay() throws IOException {
+        List<WalRecord> records = new ArrayList<>();
+        try (WriteAheadLog log = new WriteAheadLog(directory, FsyncPolicy.OS, 0)) {
+            log.replay(records::add);
+        }
+        return records;
+    }
+
+    private Path singleSegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".wal")).findFirst().orElseThrow();
+        }
+    }
+
+    private static User createUser(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setFirstName("John");
+        user.setLastName("Obama");
+        user.setBirthDate(LocalDate.of(2000, 1, 1));
+        user.setAddress("Kyiv, 25");
+        user.setPhoneNumber(null);
+        return user;
+    }
+}
@@ -0,0 +1,119 @@
+package ua.hodik.testTask.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import ua.hodik.testTask.dao.UserDaoImpl;
+import ua.hodik.testTask.dto.BulkImportFailureDto;
+import ua.hodik.testTask.dto.BulkImportResultDto;
+import ua.hodik.testTask.exceptions.InvalidDataException;
+import ua.hodik.testTask.exceptions.ValidationError;
+import ua.hodik.testTask.util.UserMapper;
+import ua.hodik.testTask.util.UserValidator;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserImportServiceTest {
+    private final UserDaoImpl userDao = new UserDaoImpl();
+    private final LocalValidatorFactoryBean validator = new LocalValidatorFactoryBean();
+    private UserImportService userImportService;
+
+    @BeforeEach
+    void setUp() {
+        validator.afterPropertiesSet();
+        UserValidator userValidator = new UserValidator();
+        ReflectionTestUtils.setField(userValidator, "minAge", 18);
+        ReflectionTestUtils.setField(userValidator, "validator", validator);
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        userImportService = new UserImportService(userDao, objectMapper, new UserMapper(), userValidator);
+    }
+
+    @AfterEach
+    void tearDown() {
+        validator.close();
+    }
+
+    @Test
+    void importUsers_ShouldReportEachRejectedRecordAndImportTheRest() {
+        //given
+        String body = "[" + String.join(",",
+                user("a@gmail.com", "01.01.2000"),
+                user("a@gmail.com", "01.01.2000"),
+                user("b@gmail.com", "01.01.2020"),
+                user("c@gmail.com", "2000-01-01"),
+                user("d@gmail.com", "01.01.1990")) + "]";
+        //when
+        BulkImportResultDto result = userImportService.importUsers(stream(body));
+        //then
+        assertEquals(5, result.getReceived());
+        assertEquals(2, result.getImported());
+        List<BulkImportFailureDto> failures = result.getFailures();
+        assertEquals(List.of(1, 2, 3), failures.stream().map(BulkImportFailureDto::getIndex).toList());
+        assertEquals("User with email a@gmail.com already exists ", failures.get(0).getMessage());
+        assertEquals("birthDate - You are too young!!!;", failures.get(1).getMessage());
+        assertEquals(List.of(new ValidationError("birthDate", "MinAge", "You are too young!!!")), failures.get(1).getErrors());
+        assertTrue(failures.get(2).getMessage().startsWith("Malformed record"));
+        assertEquals("c@gmail.com", failures.get(2).getEmail());
+        assertTrue(userDao.findByEmail("d@gmail.com").isPresent());
+    }
+
+    @Test
+    void importUsers_ShouldReadNdjsonAcrossBatches() {
+        //given
+        int count = UserImportService.BATCH_SIZE + 10;
+        String body = IntStream.range(0, count)
+                .mapToObj(i -> user("user" + i + "@gmail.com", "01.01.2000"))
+                .collect(Collectors.joining("\n"));
+        //when
+        BulkImportResultDto result = userImportService.importUsers(stream(body));
+        //then
+        assertEquals(count, result.getReceived());
+        assertEquals(count, result.getImported());
+        assertTrue(result.getFailures().isEmpty());
+        assertEquals(count, userDao.findAll().size());
+    }
+
+    @Test
+    void importUsers_ShouldReportRecordsThatAreNotObjects() {
+        //given
+        String body = "[null," + user("a@gmail.com", "01.01.2000") + ",42,[]]";
+        //when
+        BulkImportResultDto result = userImportService.importUsers(stream(body));
+        //then
+        assertEquals(4, result.getReceived());
+        assertEquals(1, result.getImported());
+        List<BulkImportFailureDto> failures = result.getFailures();
+        assertEquals(List.of(0, 2, 3), failures.stream().map(BulkImportFailureDto::getIndex).toList());
+        assertEquals("Malformed record: expected a JSON object, got null", failures.get(0).getMessage());
+        assertEquals("Malformed record: expected a JSON object, got number", failures.get(1).getMessage());
+    }
+
+    @Test
+    void importUsers_ShouldRejectBrokenJson() {
+        //when
+        InvalidDataException exception = assertThrows(InvalidDataException.class,
+                () -> userImportService.importUsers(stream(user("a@gmail.com", "01.01.2000") + "\n{\"email\":")));
+        //then
+        assertTrue(exception.getMessage().startsWith("Malformed JSON after record 1"));
+    }
+
+    private static String user(String email, String birthDate) {
+        return String.format("{\"email\":\"%s\",\"firstName\":\"John\",\"lastName\":\"Obama\",\"birthDate\":\"%s\"}",
+                email, birthDate);
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,79 @@
+package ua.hodik.testTask.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ua.hodik.testTask.dao.EmailCanonicalizer;
+import ua.hodik.testTask.dto.SerializedUserDto;
+import ua.hodik.testTask.dto.UserCacheStatsDto;
+import ua.hodik.testTask.model.User;
+import ua.hodik.testTask.util.UserMapper;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserJsonCacheTest {
+    private static final String EMAIL = "test@gmail.com";
+
+    private UserJsonCache userJsonCache;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        userJsonCache = new UserJsonCache(objectMapper, new UserMapper(),
+                new EmailCanonicalizer(EmailCanonicalizer.LocalPartPolicy.LOWERCASE), 100, 0);
+    }
+
+    @Test
+    void get_SameVersion_ShouldReuseSerializedJson() {
+        //given
+        SerializedUserDto first = userJsonCache.get(createUser(1));
+        //when
+        SerializedUserDto second = userJsonCache.get(createUser(1));
+        //then
+        assertSame(first.json(), second.json());
+        assertEquals(1, second.version());
+        UserCacheStatsDto stats = userJsonCache.stats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+    }
+
+    @Test
+    void get_NewerVersion_ShouldSerializeAgain() {
+        //given
+        SerializedUserDto first = userJsonCache.get(createUser(1));
+        User updated = createUser(2);
+        updated.setFirstName("Barack");
+        //when
+        SerializedUserDto second = userJsonCache.get(updated);
+        //then
+        assertNotSame(first.json(), second.json());
+        assertTrue(new String(second.json()).contains("Barack"));
+        assertEquals(0, userJsonCache.stats().getHits());
+        assertEquals(2, userJsonCache.stats().getMisses());
+        assertSame(second.json(), userJsonCache.get(updated).json());
+    }
+
+    @Test
+    void invalidate_ShouldDropEntryForAnySpelling() {
+        //given
+        userJsonCache.get(createUser(1));
+        //when
+        userJsonCache.invalidate("Test@Gmail.com");
+        //then
+        assertEquals(0, userJsonCache.stats().getEntries());
+    }
+
+    private static User createUser(long version) {
+        User user = new User();
+        user.setId(1);
+        user.setVersion(version);
+        user.setEmail(EMAIL);
+        user.setFirstName("John");
+        user.setLastName("Obama");
+        user.setBirthDate(LocalDate.of(2000, 1, 1));
+        return user;
+    }
+}
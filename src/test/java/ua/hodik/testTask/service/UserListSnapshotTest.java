@@ -0,0 +1,68 @@
+package ua.hodik.testTask.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ua.hodik.testTask.dao.UserDaoImpl;
+import ua.hodik.testTask.model.User;
+import ua.hodik.testTask.util.UserMapper;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserListSnapshotTest {
+    private UserDaoImpl userDao;
+    private UserListSnapshot userListSnapshot;
+
+    @BeforeEach
+    void setUp() {
+        userDao = new UserDaoImpl();
+        userListSnapshot = new UserListSnapshot(userDao, new UserMapper(), new ObjectMapper().registerModule(new JavaTimeModule()));
+    }
+
+    @Test
+    void get_WithoutWrites_ShouldReturnSameBytes() {
+        //given
+        userDao.create(createUser("a@gmail.com"));
+        //when
+        byte[] first = userListSnapshot.get();
+        byte[] second = userListSnapshot.get();
+        //then
+        assertSame(first, second);
+    }
+
+    @Test
+    void get_AfterWrite_ShouldRebuild() {
+        //given
+        userDao.create(createUser("a@gmail.com"));
+        byte[] first = userListSnapshot.get();
+        //when
+        userDao.create(createUser("b@gmail.com"));
+        byte[] second = userListSnapshot.get();
+        //then
+        assertFalse(new String(first).contains("b@gmail.com"));
+        assertTrue(new String(second).contains("b@gmail.com"));
+    }
+
+    @Test
+    void get_AfterMissedUpdate_ShouldKeepSnapshot() {
+        //given
+        userDao.create(createUser("a@gmail.com"));
+        byte[] first = userListSnapshot.get();
+        //when
+        userDao.updateIfPresent("missing@gmail.com", createUser("missing@gmail.com"));
+        //then
+        assertSame(first, userListSnapshot.get());
+    }
+
+    private static User createUser(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setFirstName("John");
+        user.setLastName("Obama");
+        user.setBirthDate(LocalDate.of(2000, 1, 1));
+        return user;
+    }
+}
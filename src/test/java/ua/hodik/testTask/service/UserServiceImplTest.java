@@ -16,14 +16,22 @@ import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Qualifier;
+import ua.hodik.testTask.dao.EmailCanonicalizer;
 import ua.hodik.testTask.dao.UserDao;
+import ua.hodik.testTask.dao.UserPage;
+import ua.hodik.testTask.dto.BirthDateBucketDto;
+import ua.hodik.testTask.dto.BirthDateHistogramUnit;
 import ua.hodik.testTask.dto.DateFormDto;
 import ua.hodik.testTask.dto.UserDto;
+import ua.hodik.testTask.dto.UserPageDto;
+import ua.hodik.testTask.exceptions.InvalidDataException;
 import ua.hodik.testTask.exceptions.UserAlreadyExistsException;
 import ua.hodik.testTask.exceptions.UserNotFoundException;
 import ua.hodik.testTask.exceptions.UserNotUpdatedException;
+import ua.hodik.testTask.exceptions.UserVersionMismatchException;
 import ua.hodik.testTask.model.User;
 import ua.hodik.testTask.util.UserMapper;
+import ua.hodik.testTask.util.UserPatch;
 import ua.hodik.testTask.util.UserValidator;
 
 import java.io.IOException;
@@ -31,6 +39,7 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.UnaryOperator;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -47,6 +56,8 @@ class UserServiceImplTest {
 
     private static final UserDto USER_DTO = createUserDto(EMAIL);
     private static final UserDto UPDATED_USER_DTO = createUserDto(EMAIL_TO_UPDATE);
+    private static final User PATCHED_USER = createUser(EMAIL);
+    private static final UserDto PATCHED_USER_DTO = createUserDto(EMAIL);
 
     private JsonNode userJsonNode;
 
@@ -70,6 +81,12 @@ class UserServiceImplTest {
     private UserValidator userValidator;
     @Mock
     private JsonPatch patch;
+    @Spy
+    private EmailCanonicalizer canonicalizer = new EmailCanonicalizer(EmailCanonicalizer.LocalPartPolicy.LOWERCASE);
+    @Mock
+    private UserJsonCache userJsonCache;
+    @Mock
+    private UserListSnapshot userListSnapshot;
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -78,6 +95,8 @@ class UserServiceImplTest {
         ObjectMapper objMapper = new ObjectMapper();
         objMapper.registerModule(new JavaTimeModule());
         userJsonNode = objMapper.valueToTree(USER_DTO);
+        PATCHED_USER.setFirstName("Barack");
+        PATCHED_USER_DTO.setFirstName("Barack");
     }
 
     @Test
@@ -86,7 +105,7 @@ class UserServiceImplTest {
         when(userDao.findByEmail(EMAIL)).thenReturn(Optional.empty());
         //when
         UserNotFoundException exception = assertThrows(UserNotFoundException.class,
-                () -> userService.patchUpdate(EMAIL, JSON_PATCH));
+                () -> userService.patchUpdate(EMAIL, UserPatch.generic(JSON_PATCH)));
         //given
         assertEquals("User with email test@gmail.com not found", exception.getMessage());
     }
@@ -100,7 +119,7 @@ class UserServiceImplTest {
         when(patch.apply(any())).thenThrow(JsonPatchException.class);
         //when
         UserNotUpdatedException exception = assertThrows(UserNotUpdatedException.class,
-                () -> userService.patchUpdate(EMAIL, patch));
+                () -> userService.patchUpdate(EMAIL, UserPatch.generic(patch)));
         //given
         assertEquals("User with email test@gmail.com not updated", exception.getMessage());
     }
@@ -114,7 +133,7 @@ class UserServiceImplTest {
         when(objectMapper.treeToValue(any(), eq(UserDto.class))).thenThrow(JsonProcessingException.class);
         //when
         UserNotUpdatedException exception = assertThrows(UserNotUpdatedException.class,
-                () -> userService.patchUpdate(EMAIL, patch));
+                () -> userService.patchUpdate(EMAIL, UserPatch.generic(patch)));
         //given
         assertEquals("User with email test@gmail.com not updated", exception.getMessage());
     }
@@ -122,25 +141,123 @@ class UserServiceImplTest {
     @Test
     void patchUpdate_Success() throws JsonPatchException, JsonProcessingException {
         //given
-        when(userDao.findByEmail(EMAIL)).thenReturn(Optional.of(USER));
+        givenPatchableUser(USER);
         when(userMapper.convertToUserDto(USER)).thenReturn(USER_DTO);
         when(objectMapper.convertValue(USER_DTO, JsonNode.class)).thenReturn(userJsonNode);
-        when(objectMapper.treeToValue(any(), eq(UserDto.class))).thenReturn(UPDATED_USER_DTO);
-        doNothing().when(userValidator).validate(any(), any());
-        when(userDao.update(EMAIL, userMapper.convertToUser(UPDATED_USER_DTO))).thenReturn(UPDATED_USER);
-        when(userMapper.convertToUserDto(UPDATED_USER)).thenReturn(UPDATED_USER_DTO);
+        when(objectMapper.treeToValue(any(), eq(UserDto.class))).thenReturn(PATCHED_USER_DTO);
+        doNothing().when(userValidator).check(any(), any());
+        when(userMapper.convertToUser(PATCHED_USER_DTO)).thenReturn(PATCHED_USER);
+        when(userMapper.convertToUserDto(PATCHED_USER)).thenReturn(PATCHED_USER_DTO);
+        //when
+        UserDto userDto = userService.patchUpdate(EMAIL, UserPatch.generic(JSON_PATCH));
+        //given
+        assertEquals(PATCHED_USER_DTO, userDto);
+    }
+
+    @Test
+    void patchUpdate_CompiledPatch_ShouldSkipJsonTree() throws IOException {
+        //given
+        UserDto userDto = createUserDto(EMAIL);
+        givenPatchableUser(USER);
+        when(userMapper.convertToUserDto(USER)).thenReturn(userDto);
+        when(userMapper.convertToUser(userDto)).thenReturn(PATCHED_USER);
+        when(userMapper.convertToUserDto(PATCHED_USER)).thenReturn(PATCHED_USER_DTO);
+        //when
+        userService.patchUpdate(EMAIL, UserPatch.compile(JSON_NODE));
+        //then
+        assertEquals("Barack", userDto.getFirstName());
+        verifyNoInteractions(objectMapper);
+    }
+
+    @Test
+    void patchUpdate_ShouldRejectEmailChange() throws IOException {
+        //given
+        when(userDao.findByEmail(EMAIL)).thenReturn(Optional.of(USER));
+        when(userMapper.convertToUserDto(USER)).thenReturn(createUserDto(EMAIL));
+        JsonNode emailPatch = new ObjectMapper().readTree("""
+                [{"op":"replace","path":"/email","value":"new@gmail.com"}]""");
+        //when
+        InvalidDataException exception = assertThrows(InvalidDataException.class,
+                () -> userService.patchUpdate(EMAIL, UserPatch.compile(emailPatch)));
+        //then
+        assertEquals("email - Can't be changed by a patch;", exception.getMessage());
+        verify(userDao, never()).computeIfPresent(any(), any());
+    }
+
+    @Test
+    void patchUpdate_ShouldPatchAgainWhenUserChangedMeanwhile() throws IOException {
+        //given
+        User read = createUser(EMAIL);
+        read.setVersion(1);
+        User current = createUser(EMAIL);
+        current.setVersion(2);
+        when(userDao.findByEmail(EMAIL)).thenReturn(Optional.of(read), Optional.of(current));
+        givenStoredUser(current);
+        when(userMapper.convertToUserDto(any(User.class))).thenAnswer(invocation -> createUserDto(EMAIL));
+        when(userMapper.convertToUser(any())).thenReturn(PATCHED_USER);
+        //when
+        userService.patchUpdate(EMAIL, UserPatch.compile(JSON_NODE));
+        //then
+        verify(userDao, times(2)).findByEmail(EMAIL);
+        verify(userDao, times(2)).computeIfPresent(eq(EMAIL), any());
+        verify(userJsonCache).invalidate(EMAIL);
+    }
+
+    @Test
+    void update_WithStaleVersion_ShouldThrowVersionMismatch() {
+        //given
+        User stored = createUser(EMAIL);
+        stored.setVersion(3);
+        givenStoredUser(stored);
         //when
-        UserDto userDto = userService.patchUpdate(EMAIL, JSON_PATCH);
+        UserVersionMismatchException exception = assertThrows(UserVersionMismatchException.class,
+                () -> userService.update(EMAIL, USER_DTO, 2));
+        //then
+        assertEquals("User with email test@gmail.com has version 3, not 2", exception.getMessage());
+        verifyNoInteractions(userMapper, userJsonCache);
+    }
+
+    @Test
+    void update_WithCurrentVersion_ShouldReplaceUser() {
         //given
-        assertEquals(UPDATED_USER_DTO, userDto);
+        User stored = createUser(EMAIL);
+        stored.setVersion(3);
+        givenStoredUser(stored);
+        when(userMapper.convertToUser(PATCHED_USER_DTO)).thenReturn(PATCHED_USER);
+        when(userMapper.convertToUserDto(PATCHED_USER)).thenReturn(PATCHED_USER_DTO);
+        //when
+        UserDto userDto = userService.update(EMAIL, PATCHED_USER_DTO, 3);
+        //then
+        assertEquals(PATCHED_USER_DTO, userDto);
+        verify(userJsonCache).invalidate(EMAIL);
+    }
+
+    @Test
+    void update_WithAnotherEmailInBody_ShouldThrowInvalidData() {
+        //when
+        InvalidDataException exception = assertThrows(InvalidDataException.class,
+                () -> userService.update(EMAIL, UPDATED_USER_DTO));
+        //then
+        assertEquals("email - Should match the email in the path;", exception.getMessage());
+        verifyNoInteractions(userDao, userJsonCache);
+    }
+
+    @Test
+    void update_WithOtherSpellingOfPathEmail_ShouldReplaceUser() {
+        //given
+        when(userDao.updateIfPresent(eq("Test@Gmail.com"), any())).thenReturn(Optional.of(USER));
+        when(userMapper.convertToUserDto(USER)).thenReturn(USER_DTO);
+        //when
+        UserDto userDto = userService.update("Test@Gmail.com", USER_DTO);
+        //then
+        assertEquals(USER_DTO, userDto);
     }
 
     @Test
     void createUser_Success() {
         //given
-        when(userDao.findByEmail(EMAIL)).thenReturn(Optional.empty());
         when(userMapper.convertToUser(USER_DTO)).thenReturn(USER);
-        when(userDao.create(any())).thenReturn(USER);
+        when(userDao.createIfAbsent(USER)).thenReturn(Optional.of(USER));
         when(userMapper.convertToUserDto(USER)).thenReturn(USER_DTO);
         //when
         UserDto userDto = userService.createUser(USER_DTO);
@@ -151,7 +268,8 @@ class UserServiceImplTest {
     @Test
     void createUser_ShouldTrowException() {
         //given
-        when(userDao.findByEmail(EMAIL)).thenReturn(Optional.of(USER));
+        when(userMapper.convertToUser(USER_DTO)).thenReturn(USER);
+        when(userDao.createIfAbsent(USER)).thenReturn(Optional.empty());
         //when
         UserAlreadyExistsException exception = assertThrows(UserAlreadyExistsException.class, () ->
                 userService.createUser(USER_DTO));
@@ -172,11 +290,63 @@ class UserServiceImplTest {
         assertEquals(EXPECTED_USER_DTO_LIST, usersDto);
     }
 
+    @Test
+    void findPage_ShouldMapUsersAndKeepCursor() {
+        //given
+        when(userDao.findPage(null, 1)).thenReturn(new UserPage(EXPECTED_USER_LIST, EMAIL));
+        when(userMapper.convertToUserDto(USER)).thenReturn(USER_DTO);
+        //when
+        UserPageDto page = userService.findPage(null, 1);
+        //then
+        assertEquals(EXPECTED_USER_DTO_LIST, page.getUsers());
+        assertEquals(EMAIL, page.getNextCursor());
+    }
+
+    @Test
+    void findPage_ShouldRejectLimitOutOfRange() {
+        //when
+        InvalidDataException exception = assertThrows(InvalidDataException.class,
+                () -> userService.findPage(null, 0));
+        //then
+        assertEquals("limit - Should be between 1 and 1000;", exception.getMessage());
+        verifyNoInteractions(userDao);
+    }
+
+    @Test
+    void searchPageByDateRange_ShouldBuildCursorFromLastUser() {
+        //given
+        when(userDao.searchPageByBirthDayRange(DATE_FORM.getFrom(), DATE_FORM.getTo(), null, null, 1))
+                .thenReturn(EXPECTED_USER_LIST);
+        when(userMapper.convertToUserDto(USER)).thenReturn(USER_DTO);
+        //when
+        UserPageDto page = userService.searchPageByDateRange(DATE_FORM, null, 1);
+        //then
+        assertEquals(EXPECTED_USER_DTO_LIST, page.getUsers());
+        assertEquals(USER.getBirthDate() + ":" + EMAIL, page.getNextCursor());
+    }
+
+    @Test
+    void searchPageByDateRange_ShouldPassDecodedCursorToDao() {
+        //when
+        userService.searchPageByDateRange(DATE_FORM, "2000-01-31:a:b@gmail.com", 10);
+        //then
+        verify(userDao).searchPageByBirthDayRange(DATE_FORM.getFrom(), DATE_FORM.getTo(),
+                LocalDate.of(2000, 1, 31), "a:b@gmail.com", 10);
+    }
+
+    @Test
+    void searchPageByDateRange_ShouldRejectMalformedCursor() {
+        //when
+        InvalidDataException exception = assertThrows(InvalidDataException.class,
+                () -> userService.searchPageByDateRange(DATE_FORM, "garbage", 10));
+        //then
+        assertEquals("cursor - Invalid cursor garbage;", exception.getMessage());
+    }
+
     @Test
     void ShouldUpdateUser() {
         //given
-        when(userDao.findByEmail(EMAIL)).thenReturn(Optional.of(USER));
-        when(userDao.update(eq(EMAIL), any())).thenReturn(UPDATED_USER);
+        when(userDao.updateIfPresent(eq(EMAIL), any())).thenReturn(Optional.of(UPDATED_USER));
         when(userMapper.convertToUserDto(UPDATED_USER)).thenReturn(UPDATED_USER_DTO);
         //when
         UserDto updatedUserDto = userService.update(EMAIL, USER_DTO);
@@ -187,7 +357,7 @@ class UserServiceImplTest {
     @Test
     void Should_TrowException() {
         //given
-        when(userDao.findByEmail(EMAIL)).thenReturn(Optional.empty());
+        when(userDao.updateIfPresent(eq(EMAIL), any())).thenReturn(Optional.empty());
         //when
         UserNotFoundException exception = assertThrows(UserNotFoundException.class,
                 () -> userService.update(EMAIL, USER_DTO));
@@ -198,22 +368,24 @@ class UserServiceImplTest {
     @Test
     void Should_TrowExceptionWhenUserIsAbsent() {
         //given
-        when(userDao.findByEmail(EMAIL)).thenReturn(Optional.empty());
+        when(userDao.deleteIfPresent(EMAIL)).thenReturn(Optional.empty());
         //when
         UserNotFoundException exception = assertThrows(UserNotFoundException.class,
                 () -> userService.delete(EMAIL));
         //then
         assertEquals("User with email test@gmail.com not found", exception.getMessage());
+        assertEquals(0, exception.getStackTrace().length);
     }
 
     @Test
     void ShouldDeleteUserByEmail() {
         //given
-        when(userDao.findByEmail(EMAIL)).thenReturn(Optional.of(USER));
+        when(userDao.deleteIfPresent(EMAIL)).thenReturn(Optional.of(USER));
         //when
         userService.delete(EMAIL);
         //then
-        verify(userDao).delete(EMAIL);
+        verify(userDao).deleteIfPresent(EMAIL);
+        verify(userJsonCache).invalidate(EMAIL);
     }
 
     @Test
@@ -227,6 +399,41 @@ class UserServiceImplTest {
         assertEquals(EXPECTED_USER_DTO_LIST, userDtoList);
     }
 
+    @Test
+    void histogramByDateRange_ShouldCountEachMonthWithinRange() {
+        //given
+        DateFormDto dateForm = new DateFormDto(LocalDate.of(1999, 11, 30), LocalDate.of(2000, 2, 2));
+        when(userDao.countByBirthDayRange(LocalDate.of(1999, 11, 30), LocalDate.of(2000, 1, 1))).thenReturn(3L);
+        when(userDao.countByBirthDayRange(LocalDate.of(1999, 12, 31), LocalDate.of(2000, 2, 1))).thenReturn(0L);
+        when(userDao.countByBirthDayRange(LocalDate.of(2000, 1, 31), LocalDate.of(2000, 2, 2))).thenReturn(5L);
+        //when
+        List<BirthDateBucketDto> histogram = userService.histogramByDateRange(dateForm, BirthDateHistogramUnit.MONTH);
+        //then
+        assertEquals(List.of(new BirthDateBucketDto("1999-12", 3), new BirthDateBucketDto("2000-01", 0),
+                new BirthDateBucketDto("2000-02", 5)), histogram);
+    }
+
+    @Test
+    void histogramByDateRange_ShouldRejectTooManyBuckets() {
+        //given
+        DateFormDto dateForm = new DateFormDto(LocalDate.of(1000, 1, 1), LocalDate.of(2000, 1, 1));
+        //when
+        //then
+        assertThrows(InvalidDataException.class, () -> userService.histogramByDateRange(dateForm, BirthDateHistogramUnit.MONTH));
+        verifyNoInteractions(userDao);
+    }
+
+    private void givenPatchableUser(User user) {
+        when(userDao.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+        givenStoredUser(user);
+    }
+
+    // Makes the mocked DAO run the remapping function against the given stored user.
+    private void givenStoredUser(User user) {
+        when(userDao.computeIfPresent(eq(user.getEmail()), any()))
+                .thenAnswer(invocation -> Optional.of(invocation.<UnaryOperator<User>>getArgument(1).apply(user)));
+    }
+
     private static User createUser(String email) {
         User user = new User();
         user.setEmail(email);
@@ -254,8 +461,8 @@ class UserServiceImplTest {
         patchOperations.putArray("operations")
                 .addObject()
                 .put("op", "replace")
-                .put("path", "/email")
-                .put("value", "new@gmail.com");
+                .put("path", "/firstName")
+                .put("value", "Barack");
         JsonNode jsonNode = patchOperations.get("operations");
         return jsonNode;
     }
@@ -0,0 +1,71 @@
+package ua.hodik.testTask.util;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.Test;
+import ua.hodik.testTask.dto.UserDto;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserDtoConstraintsTest {
+
+    @Test
+    void isPlainEmail_ShouldAcceptCommonEmails() {
+        assertTrue(UserDtoConstraints.isPlainEmail("john.obama+test@mail.gmail.com"));
+        assertTrue(UserDtoConstraints.isPlainEmail("a@b"));
+        assertFalse(UserDtoConstraints.isPlainEmail("john..obama@gmail.com"));
+        assertFalse(UserDtoConstraints.isPlainEmail("john@-gmail.com"));
+        assertFalse(UserDtoConstraints.isPlainEmail("john@gmail.com."));
+    }
+
+    @Test
+    void hold_ShouldLeaveTooLongFieldsToBeanValidation() {
+        //given
+        UserDto userDto = new UserDto();
+        userDto.setEmail("john@gmail.com");
+        userDto.setFirstName("John");
+        userDto.setLastName("Obama");
+        userDto.setBirthDate(LocalDate.of(2000, 1, 1));
+        userDto.setAddress("a".repeat(100_000));
+        try (ValidatorFactory factory = Validation.buildDefaultValidatorFactory()) {
+            //when
+            boolean hold = UserDtoConstraints.hold(userDto, LocalDate.now().toEpochDay());
+            //then
+            assertFalse(hold);
+            assertEquals("Should be at most 1000 characters",
+                    factory.getValidator().validate(userDto).iterator().next().getMessage());
+        }
+    }
+
+    @Test
+    void hold_ShouldNeverPassWhatBeanValidationRejects() {
+        //given
+        Random random = new Random(3);
+        String alphabet = "ab9.@-_+ \"[]:é";
+        long today = LocalDate.now().toEpochDay();
+        try (ValidatorFactory factory = Validation.buildDefaultValidatorFactory()) {
+            Validator validator = factory.getValidator();
+            for (int i = 0; i < 20_000; i++) {
+                StringBuilder email = new StringBuilder();
+                for (int length = random.nextInt(12); length > 0; length--) {
+                    email.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+                UserDto userDto = new UserDto();
+                userDto.setEmail(email.toString());
+                userDto.setFirstName(random.nextBoolean() ? "John" : " ");
+                userDto.setLastName("Obama");
+                userDto.setBirthDate(LocalDate.ofEpochDay(today - 1 + random.nextInt(3)));
+                //when
+                boolean hold = UserDtoConstraints.hold(userDto, today);
+                //then
+                if (hold) {
+                    assertTrue(validator.validate(userDto).isEmpty(), userDto.toString());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package ua.hodik.testTask.util;
+
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import ua.hodik.testTask.dto.UserDto;
+import ua.hodik.testTask.model.User;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UserMapperTest {
+    private final UserMapper userMapper = new UserMapper();
+    private final ModelMapper modelMapper = new ModelMapper();
+
+    @Test
+    void convertToUserDto_ShouldMatchModelMapper() {
+        //given
+        User user = new User();
+        user.setId(7);
+        user.setEmail("test@gmail.com");
+        user.setFirstName("John");
+        user.setLastName("Obama");
+        user.setBirthDate(LocalDate.of(2000, 1, 1));
+        user.setAddress("Kyiv, 25");
+        user.setPhoneNumber("+1234567890");
+        //when
+        UserDto userDto = userMapper.convertToUserDto(user);
+        //then
+        assertEquals(modelMapper.map(user, UserDto.class), userDto);
+        assertEquals(user, userMapper.convertToUser(userDto));
+    }
+
+    @Test
+    void convertToUser_ShouldKeepNullFields() {
+        //given
+        UserDto userDto = new UserDto();
+        userDto.setEmail("test@gmail.com");
+        //when
+        User user = userMapper.convertToUser(userDto);
+        //then
+        assertEquals(modelMapper.map(userDto, User.class), user);
+    }
+}
@@ -0,0 +1,75 @@
+package ua.hodik.testTask.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.fge.jsonpatch.JsonPatch;
+import com.github.fge.jsonpatch.JsonPatchException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ua.hodik.testTask.dto.UserDto;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserPatchTest {
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private UserDto userDto;
+
+    @BeforeEach
+    void setUp() {
+        userDto = new UserDto();
+        userDto.setId(7);
+        userDto.setEmail("test@gmail.com");
+        userDto.setFirstName("John");
+        userDto.setLastName("Obama");
+        userDto.setBirthDate(LocalDate.of(2000, 1, 1));
+        userDto.setAddress("Kyiv, 25");
+    }
+
+    @Test
+    void compile_SupportedOperations_ShouldMatchGenericPatch() throws Exception {
+        //given
+        String json = """
+                [{"op":"test","path":"/email","value":"test@gmail.com"},
+                 {"op":"test","path":"/phoneNumber","value":null},
+                 {"op":"replace","path":"/firstName","value":"Barack"},
+                 {"op":"add","path":"/birthDate","value":"04.08.1961"},
+                 {"op":"remove","path":"/address"},
+                 {"op":"remove","path":"/id"}]""";
+        //when
+        UserPatch patch = objectMapper.readValue(json, UserPatch.class);
+        UserDto expected = applyGeneric(json, userDto);
+        //then
+        assertTrue(patch.isCompiled());
+        assertEquals(expected, patch.apply(userDto));
+    }
+
+    @Test
+    void apply_FailedTest_ShouldThrowJsonPatchException() throws Exception {
+        //given
+        UserPatch patch = objectMapper.readValue("[{\"op\":\"test\",\"path\":\"/lastName\",\"value\":\"Smith\"}]", UserPatch.class);
+        //when then
+        assertThrows(JsonPatchException.class, () -> patch.apply(userDto));
+    }
+
+    @Test
+    void compile_UnsupportedOperation_ShouldFallBackToJsonPatch() throws Exception {
+        //when
+        UserPatch move = objectMapper.readValue("[{\"op\":\"move\",\"from\":\"/firstName\",\"path\":\"/lastName\"}]", UserPatch.class);
+        UserPatch unknownPath = objectMapper.readValue("[{\"op\":\"replace\",\"path\":\"/wrong\",\"value\":\"x\"}]", UserPatch.class);
+        UserPatch coercedValue = objectMapper.readValue("[{\"op\":\"replace\",\"path\":\"/id\",\"value\":\"5\"}]", UserPatch.class);
+        //then
+        assertFalse(move.isCompiled());
+        assertNotNull(move.getJsonPatch());
+        assertFalse(unknownPath.isCompiled());
+        assertFalse(coercedValue.isCompiled());
+    }
+
+    private UserDto applyGeneric(String json, UserDto target) throws Exception {
+        JsonPatch jsonPatch = objectMapper.readValue(json, JsonPatch.class);
+        JsonNode patched = jsonPatch.apply(objectMapper.convertValue(target, JsonNode.class));
+        return objectMapper.treeToValue(patched, UserDto.class);
+    }
+}
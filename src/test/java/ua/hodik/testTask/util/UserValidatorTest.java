@@ -21,8 +21,12 @@ import org.springframework.validation.Validator;
 import ua.hodik.testTask.TestConfiguration;
 import ua.hodik.testTask.dto.UserDto;
 import ua.hodik.testTask.exceptions.InvalidDataException;
+import ua.hodik.testTask.exceptions.ValidationError;
 
+import java.time.Clock;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -75,4 +79,49 @@ class UserValidatorTest {
         assertEquals("birthDate - You are too young!!!;", exception.getMessage());
         verify(validator, times(1)).validate(eq(userDto), any(Errors.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void validate_CompleteUserDto_ShouldSkipBeanValidation() {
+        //given
+        userDto.setEmail("john@gmail.com");
+        userDto.setFirstName("John");
+        userDto.setLastName("Obama");
+        Errors errors = new BeanPropertyBindingResult(userDto, "userDto");
+        //when
+        userValidator.validate(userDto, errors);
+        //then
+        assertFalse(errors.hasErrors());
+        verify(validator, never()).validate(any(), any(Errors.class));
+    }
+
+    @Test
+    void validate_Feb29Birthday_ShouldComeOfAgeOnFeb28() {
+        //given
+        userDto.setBirthDate(LocalDate.of(2004, 2, 29));
+        setToday(LocalDate.of(2022, 2, 27));
+        //when
+        //then
+        assertThrows(InvalidDataException.class,
+                () -> userValidator.validate(userDto, new BeanPropertyBindingResult(userDto, "userDto")));
+        setToday(LocalDate.of(2022, 2, 28));
+        userValidator.validate(userDto, new BeanPropertyBindingResult(userDto, "userDto"));
+    }
+
+    @Test
+    void check_ShouldCollectErrorsWithoutThrowing() {
+        //given
+        userDto.setBirthDate(LocalDate.now().minusYears(10));
+        ValidationResult result = new ValidationResult();
+        //when
+        userValidator.check(userDto, result);
+        //then
+        assertEquals(List.of(new ValidationError("birthDate", "MinAge", "You are too young!!!")), result.getErrors());
+        result.clear();
+        assertFalse(result.hasErrors());
+    }
+
+    private void setToday(LocalDate today) {
+        Clock clock = Clock.fixed(today.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC);
+        ReflectionTestUtils.setField(userValidator, "clock", clock);
+    }
+}